@@ -0,0 +1,47 @@
+package com.morapack.mpa.bench;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.planner.Decoder;
+import com.morapack.mpa.planner.Solution;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Un Decoder.decode completo sobre N órdenes (ordenamiento + ruteo + reservas). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecoderBenchmark {
+
+    @Param({"1000", "10000"})
+    public int orders;
+
+    @Param({"9", "30"})
+    public int airports;
+
+    private Decoder decoder;
+    private List<PackageOrder> ords;
+    private double[][] priorities;
+    private int next;
+
+    @Setup
+    public void setup() {
+        WeeklyScenario scn = WeeklyScenario.syntheticNetwork(airports, 42L);
+        ords = scn.generateOrders(orders, 7L);
+        decoder = new Decoder(scn.graph);
+        Random rnd = new Random(11L);
+        priorities = new double[8][orders];
+        for (double[] p: priorities) for (int i = 0; i < orders; i++) p[i] = rnd.nextDouble();
+    }
+
+    @Benchmark
+    public Solution decode() {
+        return decoder.decode(priorities[next++ & 7], ords);
+    }
+}
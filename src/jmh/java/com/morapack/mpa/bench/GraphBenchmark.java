@@ -0,0 +1,31 @@
+package com.morapack.mpa.bench;
+
+import com.morapack.mpa.graph.ReachabilityIndex;
+import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Compilación de la plantilla del TEGraph y de su índice de alcanzabilidad según nº de aeropuertos. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphBenchmark {
+
+    @Param({"9", "30", "60"})
+    public int airports;
+
+    @Benchmark
+    public TEGraph.Schedule buildGraph() {
+        return WeeklyScenario.syntheticNetwork(airports, 42L).graph.schedule();
+    }
+
+    @Benchmark
+    public ReachabilityIndex buildReachability() {
+        return WeeklyScenario.syntheticNetwork(airports, 42L).graph.reachability();
+    }
+}
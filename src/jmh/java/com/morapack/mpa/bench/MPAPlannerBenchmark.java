@@ -0,0 +1,51 @@
+package com.morapack.mpa.bench;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.planner.MPAPlanner;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una generación de MPAPlanner (maxIterations = 1): incluye la evaluación de la
+ * población inicial, es decir 2 * population decodificaciones por invocación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MPAPlannerBenchmark {
+
+    @Param({"1000"})
+    public int orders;
+
+    @Param({"30"})
+    public int airports;
+
+    @Param({"20", "40"})
+    public int population;
+
+    @Param({"1"})
+    public int workers;
+
+    private WeeklyScenario scn;
+    private List<PackageOrder> ords;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        scn = WeeklyScenario.syntheticNetwork(airports, 42L);
+        ords = scn.generateOrders(orders, 7L);
+    }
+
+    @Benchmark
+    public MPAPlanner.Result oneGeneration() {
+        return new MPAPlanner(scn.graph, population, Long.MAX_VALUE / 4, seed++, 1, Long.MAX_VALUE / 4)
+                .withWorkers(workers)
+                .solveWeekly(ords);
+    }
+}
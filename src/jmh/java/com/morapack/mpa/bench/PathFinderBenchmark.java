@@ -0,0 +1,54 @@
+package com.morapack.mpa.bench;
+
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.ConnectionScanPathFinder;
+import com.morapack.mpa.graph.PathFinder;
+import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.graph.TimeExpandedPathFinder;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Una búsqueda de llegada más temprana (PathFinder.route) con el grafo a capacidad completa, por motor. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathFinderBenchmark {
+
+    @Param({"9", "30", "60"})
+    public int airports;
+
+    @Param({"te", "csa"})
+    public String engine;
+
+    private TEGraph graph;
+    private CapacityLedger ledger;
+    private PathFinder finder;
+    private int[] origins, dests;
+    private int next;
+
+    @Setup
+    public void setup() {
+        graph = WeeklyScenario.syntheticNetwork(airports, 42L).graph;
+        ledger = new CapacityLedger(graph);
+        finder = engine.equals("csa") ? new ConnectionScanPathFinder() : new TimeExpandedPathFinder();
+        Random rnd = new Random(7L);
+        origins = new int[1024];
+        dests = new int[1024];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = rnd.nextInt(graph.airportCount());
+            do dests[i] = rnd.nextInt(graph.airportCount()); while (dests[i] == origins[i]);
+        }
+    }
+
+    @Benchmark
+    public int route() {
+        int i = next++ & (origins.length - 1);
+        return finder.route(graph, ledger, origins[i], 0, dests[i], graph.hours() - 1);
+    }
+}
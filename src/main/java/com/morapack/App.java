@@ -5,8 +5,12 @@ import com.morapack.mpa.experiment.KPI;
 
 /**
  * CLI:
- * mvn -q -Dexec.args="24 30 10000 20" exec:java
- * args: <num_ordenes> <replicas> <tiempo_limite_ms> [poblacion]
+ * mvn -q -Dexec.args="24 30 10000 20 8" exec:java
+ * args: <num_ordenes> <replicas> <tiempo_limite_ms> [poblacion] [workers] [replicas_paralelas]
+ * workers: hilos para evaluar la población (por defecto 1; 0 = todos los núcleos)
+ * replicas_paralelas: si es > 1, corre ese número de réplicas a la vez (cada una con 'workers'
+ *   hilos; conviene replicas_paralelas x workers <= núcleos) e imprime cada fila al terminar
+ *   (orden de finalización)
  */
 public class App {
     public static void main(String[] args) {
@@ -14,11 +18,20 @@ public class App {
         int reps    = args.length > 1 ? Integer.parseInt(args[1]) : 30;
         long tlimMs = args.length > 2 ? Long.parseLong(args[2]) : 45000L;
         int pop     = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        if (workers <= 0) workers = Runtime.getRuntime().availableProcessors();
+        int parallel = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        if (parallel <= 0) parallel = Runtime.getRuntime().availableProcessors();
 
         System.out.println("replica,runtime_ms,percent_delivered");
+        if (parallel > 1) {
+            ExperimentRunner.runBatch(nOrders, reps, 12345L, tlimMs, pop, parallel, workers,
+                    (i, k) -> System.out.println(i + "," + k.toString()));
+            return;
+        }
         for (int i = 0; i < reps; i++) {
             long seed = 12345L + i;
-            KPI k = ExperimentRunner.runWeeklyMPA(nOrders, seed, tlimMs, pop);
+            KPI k = ExperimentRunner.runWeeklyMPA(nOrders, seed, tlimMs, pop, workers);
             System.out.println(i + "," + k.toString());
         }
     }
@@ -1,33 +1,59 @@
 package com.morapack.mpa.domain;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
- * Instancia temporal de un vuelo en la semana (ej. "BRU->LIM @ hora 14").
- * El tiempo se maneja en horas discretas [0..167] para el horizonte semanal.
+ * Instancia temporal de un vuelo en el horizonte (ej. "BRU->LIM @ hora 14").
+ * El tiempo se maneja en horas discretas: la salida en [0, TEGraph.hours()) y la llegada
+ * puede superar hours() en horizonte cíclico (fuera del TEGraph, p.ej. StreamingPlanner,
+ * son horas absolutas).
+ *
+ * El cupo restante es compartido entre hilos: book/release usan CAS (sin locks),
+ * por lo que nunca se sobrevende aunque reserven muchos hilos a la vez.
  */
 public class FlightInstance {
+    private final int id;            // índice denso dentro del TEGraph (para ledgers primitivos)
     private final Flight flight;
-    private final int departureHour; // 0..167
+    private final int departureHour; // 0..hours()-1 del TEGraph (o absoluta)
     private final int arrivalHour;   // dep + dur (en horas)
-    private int remainingCapacity;
+    private volatile int remainingCapacity;
+
+    private static final VarHandle REMAINING;
+    static {
+        try {
+            REMAINING = MethodHandles.lookup().findVarHandle(FlightInstance.class, "remainingCapacity", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
-    public FlightInstance(Flight flight, int departureHour, int arrivalHour) {
+    public FlightInstance(int id, Flight flight, int departureHour, int arrivalHour) {
+        this.id = id;
         this.flight = flight;
         this.departureHour = departureHour;
         this.arrivalHour = arrivalHour;
         this.remainingCapacity = flight.capacityPerInstance();
     }
 
+    public int id() { return id; }
     public Flight flight() { return flight; }
     public int departureHour() { return departureHour; }
     public int arrivalHour() { return arrivalHour; }
     public int remainingCapacity() { return remainingCapacity; }
 
-    /** Reserva capacidad para N paquetes si hay cupo, devolviendo true en caso de éxito. */
+    /** Reserva capacidad para N paquetes si hay cupo, devolviendo true en caso de éxito (atómico). */
     public boolean book(int units) {
-        if (remainingCapacity >= units) {
-            remainingCapacity -= units;
-            return true;
-        }
-        return false;
+        int cur;
+        do {
+            cur = remainingCapacity;
+            if (cur < units) return false;
+        } while (!REMAINING.compareAndSet(this, cur, cur - units));
+        return true;
+    }
+
+    /** Devuelve N unidades reservadas antes con book(...) (atómico). */
+    public void release(int units) {
+        REMAINING.getAndAdd(this, units);
     }
 }
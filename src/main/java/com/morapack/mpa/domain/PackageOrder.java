@@ -10,17 +10,23 @@ public class PackageOrder {
     private final Airport destination;
     private final int deadlineHour; // límite de llegada desde hora cero (0..167)
     private final int sizeUnits;
+    private final int releaseHour;  // hora desde la que el paquete está en origen (0 = inicio)
 
     public PackageOrder(String id, Airport origin, Airport destination, int deadlineHour) {
         this(id, origin, destination, deadlineHour, 1);
     }
 
     public PackageOrder(String id, Airport origin, Airport destination, int deadlineHour, int sizeUnits) {
+        this(id, origin, destination, deadlineHour, sizeUnits, 0);
+    }
+
+    public PackageOrder(String id, Airport origin, Airport destination, int deadlineHour, int sizeUnits, int releaseHour) {
         this.id = id;
         this.origin = origin;
         this.destination = destination;
         this.deadlineHour = deadlineHour;
         this.sizeUnits = sizeUnits;
+        this.releaseHour = releaseHour;
     }
 
     public String id() { return id; }
@@ -28,4 +34,5 @@ public class PackageOrder {
     public Airport destination() { return destination; }
     public int deadlineHour() { return deadlineHour; }
     public int sizeUnits() { return sizeUnits; }
+    public int releaseHour() { return releaseHour; }
 }
\ No newline at end of file
@@ -1,11 +1,18 @@
 package com.morapack.mpa.experiment;
 
 import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.planner.IslandPlanner;
 import com.morapack.mpa.planner.MPAPlanner;
 import com.morapack.mpa.planner.Solution;
 import com.morapack.mpa.scenario.WeeklyScenario;
 
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 
 /**
  * Lanza corridas repetidas del escenario semanal con MPA
@@ -13,21 +20,81 @@ import java.util.List;
  */
 public class ExperimentRunner {
 
+    /** Fila de runBatch: réplica y su KPI. */
+    private record Row(int replica, KPI kpi) { }
+
     /** Ejecuta una corrida semanal con N órdenes y tiempo máximo de cómputo. */
     public static KPI runWeeklyMPA(int orders, long seed, long timeLimitMs, int population) {
-        WeeklyScenario scn = WeeklyScenario.demoNetwork();
+        return runWeeklyMPA(orders, seed, timeLimitMs, population, 1);
+    }
+
+    /** Igual que el anterior, evaluando la población en 'workers' hilos. */
+    public static KPI runWeeklyMPA(int orders, long seed, long timeLimitMs, int population, int workers) {
+        return runWeeklyMPA(WeeklyScenario.demoNetwork(), orders, seed, timeLimitMs, population, workers);
+    }
+
+    /**
+     * Corrida sobre un escenario ya construido. El grafo no se modifica (cada Decoder
+     * reserva en su propio CapacityLedger), así que un mismo escenario sirve para
+     * varias réplicas concurrentes.
+     */
+    public static KPI runWeeklyMPA(WeeklyScenario scn, int orders, long seed, long timeLimitMs, int population, int workers) {
         List<PackageOrder> ords = scn.generateOrders(orders, seed);
 
         // Early stop: corta si no mejora por 30% del tiempo límite
         long noImproveMs = Math.max(2000L, (long) (timeLimitMs * 0.30));
 
-        MPAPlanner mpa = new MPAPlanner(scn.graph, population, timeLimitMs, seed, /*maxIter*/ Integer.MAX_VALUE, noImproveMs);
+        MPAPlanner mpa = new MPAPlanner(scn.graph, population, timeLimitMs, seed, /*maxIter*/ Integer.MAX_VALUE, noImproveMs)
+                .withWorkers(workers);
         MPAPlanner.Result res = mpa.solveWeekly(ords);
         Solution best = res.best;
 
         return new KPI(res.runtimeMs, best.percentDelivered);
     }
 
+    /** Corrida semanal con K islas MPA en paralelo que migran su elite cada 'migrateEvery' generaciones. */
+    public static KPI runWeeklyIslands(int orders, long seed, long timeLimitMs, int population, int islands, int migrateEvery) {
+        WeeklyScenario scn = WeeklyScenario.demoNetwork();
+        List<PackageOrder> ords = scn.generateOrders(orders, seed);
+
+        IslandPlanner isl = new IslandPlanner(scn.graph, islands, population, timeLimitMs, seed, migrateEvery);
+        MPAPlanner.Result res = isl.solveWeekly(ords);
+        return new KPI(res.runtimeMs, res.best.percentDelivered);
+    }
+
+    /**
+     * Ejecuta 'replicas' corridas (semilla baseSeed + i) en un pool de 'threads' hilos sobre un
+     * único escenario compartido, cada una evaluando su población en 'workers' hilos, y entrega
+     * cada fila (réplica, KPI) apenas termina, en orden de finalización. Bloquea hasta terminar todas.
+     */
+    public static void runBatch(int orders, int replicas, long baseSeed, long timeLimitMs, int population,
+                                int threads, int workers, BiConsumer<Integer, KPI> onRow) {
+        final WeeklyScenario scn = WeeklyScenario.demoNetwork();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "mpa-replica");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Row> done = new ExecutorCompletionService<>(pool);
+        try {
+            for (int i = 0; i < replicas; i++) {
+                final int rep = i;
+                done.submit(() -> new Row(rep, runWeeklyMPA(scn, orders, baseSeed + rep, timeLimitMs, population, workers)));
+            }
+            for (int i = 0; i < replicas; i++) {
+                Row row = done.take().get();
+                onRow.accept(row.replica(), row.kpi());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lote interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló una réplica", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     // Compatibilidad hacia atrás (por si llamas sin población)
     public static KPI runWeeklyMPA(int orders, long seed, long timeLimitMs) {
         return runWeeklyMPA(orders, seed, timeLimitMs, 40);
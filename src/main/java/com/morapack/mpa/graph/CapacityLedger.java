@@ -0,0 +1,91 @@
+package com.morapack.mpa.graph;
+
+/**
+ * Libro de capacidades por decodificación:
+ * - Cupo restante por instancia de vuelo en un int[] indexado por FlightInstance.id()
+ * - Las reservas no tocan los FlightInstance compartidos del TEGraph
+ * - Ocupación de almacén por aeropuerto/hora en un WarehouseTimeline propio
+ * - reset() restaura sólo las instancias tocadas (O(tocadas), no O(grafo))
+ *
+ * No es thread-safe: cada decodificador (o hilo) mantiene su propio ledger.
+ */
+public class CapacityLedger {
+    private final int[] base;       // capacidad inicial por instancia
+    private final int[] remaining;  // capacidad restante en esta decodificación
+    private final int[] touched;    // pila de ids modificados desde el último reset
+    private final boolean[] dirty;
+    private int touchedCount;
+    private final WarehouseTimeline warehouse;
+
+    public CapacityLedger(TEGraph graph) {
+        this(initialCapacities(graph), new WarehouseTimeline(graph));
+    }
+
+    private CapacityLedger(int[] base, WarehouseTimeline warehouse) {
+        int n = base.length;
+        this.base = base;
+        this.warehouse = warehouse;
+        this.remaining = base.clone();
+        this.touched = new int[n];
+        this.dirty = new boolean[n];
+    }
+
+    private static int[] initialCapacities(TEGraph graph) {
+        int[] base = new int[graph.instanceCount()];
+        for (int id = 0; id < base.length; id++) base[id] = graph.capacityOf(id);
+        return base;
+    }
+
+    /** Ledger cuya capacidad inicial es el cupo compartido actual de las instancias del grafo. */
+    public static CapacityLedger ofShared(TEGraph graph) {
+        int[] base = new int[graph.instanceCount()];
+        for (int id = 0; id < base.length; id++) base[id] = graph.sharedRemaining(id);
+        return new CapacityLedger(base, new WarehouseTimeline(graph));
+    }
+
+    /** Ledger cuya capacidad inicial por instancia es 'remaining' (p.ej. leída de un checkpoint), con almacén vacío. */
+    public static CapacityLedger of(TEGraph graph, int[] remaining) {
+        if (remaining.length != graph.instanceCount()) {
+            throw new IllegalArgumentException("Se esperaban " + graph.instanceCount() + " instancias; hay " + remaining.length);
+        }
+        return new CapacityLedger(remaining.clone(), new WarehouseTimeline(graph));
+    }
+
+    /** Igual que of(graph, remaining), con la ocupación de almacén inicial (ver WarehouseTimeline.occupancy()). */
+    public static CapacityLedger of(TEGraph graph, int[] remaining, int[] warehouseOccupancy) {
+        if (remaining.length != graph.instanceCount()) {
+            throw new IllegalArgumentException("Se esperaban " + graph.instanceCount() + " instancias; hay " + remaining.length);
+        }
+        return new CapacityLedger(remaining.clone(), WarehouseTimeline.of(graph, warehouseOccupancy));
+    }
+
+    /** Nuevo ledger cuya capacidad inicial es el cupo restante actual de éste (reservas comprometidas). */
+    public CapacityLedger snapshot() {
+        return new CapacityLedger(remaining.clone(), warehouse.snapshot());
+    }
+
+    public int size() { return base.length; }
+    public WarehouseTimeline warehouse() { return warehouse; }
+    public int remaining(int instanceId) { return remaining[instanceId]; }
+    public boolean canBook(int instanceId, int units) { return remaining[instanceId] >= units; }
+
+    /** Descuenta cupo sin verificar (el llamador ya comprobó canBook); 'units' negativo lo devuelve. */
+    public void book(int instanceId, int units) {
+        if (!dirty[instanceId]) {
+            dirty[instanceId] = true;
+            touched[touchedCount++] = instanceId;
+        }
+        remaining[instanceId] -= units;
+    }
+
+    /** Restaura la capacidad inicial de todas las instancias tocadas (y la ocupación de almacén). */
+    public void reset() {
+        warehouse.reset();
+        for (int k = 0; k < touchedCount; k++) {
+            int id = touched[k];
+            remaining[id] = base[id];
+            dirty[id] = false;
+        }
+        touchedCount = 0;
+    }
+}
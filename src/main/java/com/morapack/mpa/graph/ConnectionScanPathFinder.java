@@ -0,0 +1,207 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.metrics.PlannerMetrics;
+
+import java.util.Arrays;
+
+/**
+ * Motor de PathFinder por barrido de conexiones (connection scan) sobre TEGraph.connections():
+ * - Estado = llegada más temprana por aeropuerto (no por nodo airport@hour): las esperas
+ *   quedan implícitas y no se recorren hora por hora
+ * - Las salidas se recorren una sola vez en orden de hora; una conexión se toma si el
+ *   aeropuerto de salida ya se alcanzó a esa hora, tiene cupo (ledger o instancia compartida)
+ *   y, con ledger, la estadía [llegada, salida) cabe en el WarehouseTimeline
+ * - route(...) corta en cuanto la salida supera la mejor llegada al destino
+ * - En horizonte cíclico se hace una segunda vuelta con las salidas anteriores a startHour
+ *   (horas absolutas + hours()), hasta completar un ciclo
+ *
+ * Como toda conexión dura >= 1h, la llegada más temprana de un aeropuerto ya usada por una
+ * salida no puede mejorar después: los tramos se reconstruyen desde el último vuelo de llegada.
+ *
+ * Con almacén la estadía se mide desde la llegada más temprana al aeropuerto (no se prueba
+ * llegar más tarde para acortarla), así que con almacenes saturados el barrido puede no hallar
+ * una ruta que sí existe. En ese caso (sólo con almacén) se repite la búsqueda con un
+ * TimeExpandedPathFinder interno: route(...) en el acto, y tras sweep(...) al consultar un
+ * aeropuerto no alcanzado (con el ledger aún en el estado del sweep). Así ninguna orden queda
+ * en backlog por la aproximación. Sin restricción de almacén la hora de llegada es la misma
+ * que la de TimeExpandedPathFinder (los tramos pueden diferir en empates).
+ *
+ * No asigna memoria por búsqueda (arreglos por aeropuerto reutilizados); no es thread-safe.
+ */
+public class ConnectionScanPathFinder implements PathFinder {
+    private static final int NONE = Integer.MAX_VALUE;
+
+    // Arreglos de trabajo por aeropuerto
+    private int[] earliest = new int[0];   // llegada más temprana (para transbordar)
+    private int[] inInst = new int[0];     // vuelo de esa llegada (-1 = origen)
+    private int[] inFrom = new int[0];     // aeropuerto de salida de ese vuelo
+    private int[] reachedAt = new int[0];  // llegada más temprana con retiro en almacén (= destino)
+    private int[] reachedInst = new int[0];
+    private int[] reachedFrom = new int[0];
+    private int[] legs = new int[16];
+    private int legCount;
+    private PlannerMetrics metrics;
+
+    // Respaldo exacto cuando la aproximación de almacén no halla ruta
+    private TimeExpandedPathFinder fallback;
+    private boolean warehouseLimited;     // la última búsqueda filtró por almacén
+    private boolean fromFallback;         // legs()/legCount() vienen del respaldo
+    private TEGraph sweptGraph;           // argumentos del último sweep (para el respaldo diferido)
+    private CapacityLedger sweptLedger;
+    private int sweptOrigin, sweptStart, sweptMinUnits;
+    private boolean fallbackSwept;
+
+    @Override
+    public void setMetrics(PlannerMetrics metrics) {
+        this.metrics = metrics;
+        if (fallback != null) fallback.setMetrics(metrics);
+    }
+
+    @Override
+    public int route(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int deadlineHour, int units) {
+        legCount = 0;
+        fromFallback = false;
+        sweptGraph = null;
+        scan(g, ledger, origin, startHour, dest, deadlineHour, Math.max(1, units));
+        if (reachedAt[dest] != NONE) return reconstruct(dest);
+        if (!warehouseLimited) return -1;
+        fromFallback = true;
+        return fallback().route(g, ledger, origin, startHour, dest, deadlineHour, units);
+    }
+
+    @Override
+    public void sweep(TEGraph g, CapacityLedger ledger, int origin, int startHour, int minUnits) {
+        legCount = 0;
+        fromFallback = false;
+        scan(g, ledger, origin, startHour, -1, Integer.MAX_VALUE, minUnits);
+        sweptGraph = g;
+        sweptLedger = ledger;
+        sweptOrigin = origin;
+        sweptStart = startHour;
+        sweptMinUnits = minUnits;
+        fallbackSwept = false;
+    }
+
+    @Override
+    public int arrivalAt(int airport) {
+        if (reachedAt[airport] != NONE) return reachedAt[airport];
+        return warehouseLimited && sweptGraph != null ? fallbackSweep().arrivalAt(airport) : -1;
+    }
+
+    @Override
+    public int legsTo(TEGraph g, int airport) {
+        fromFallback = false;
+        if (reachedAt[airport] != NONE) return reconstruct(airport);
+        if (!warehouseLimited || sweptGraph == null) return -1;
+        fromFallback = true;
+        return fallbackSweep().legsTo(g, airport);
+    }
+
+    @Override public int[] legs() { return fromFallback ? fallback.legs() : legs; }
+    @Override public int legCount() { return fromFallback ? fallback.legCount() : legCount; }
+
+    private TimeExpandedPathFinder fallback() {
+        if (fallback == null) {
+            fallback = new TimeExpandedPathFinder();
+            fallback.setMetrics(metrics);
+        }
+        PlannerMetrics m = metrics;
+        if (m != null) m.scanFallbacks.increment();
+        return fallback;
+    }
+
+    /** Sweep exacto del respaldo con los argumentos del último sweep (una vez por sweep). */
+    private TimeExpandedPathFinder fallbackSweep() {
+        if (!fallbackSwept) {
+            fallback().sweep(sweptGraph, sweptLedger, sweptOrigin, sweptStart, sweptMinUnits);
+            fallbackSwept = true;
+        }
+        return fallback;
+    }
+
+    /** Recorre las conexiones desde startHour; dest = -1 recorre todo el ciclo/horizonte. */
+    private void scan(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int lastHour, int minUnits) {
+        final Connections cs = g.connections();
+        final int H = g.hours(), n = g.airportCount();
+        final boolean cyclic = g.isCyclic();
+        final int endHour = (int) Math.min(lastHour, cyclic ? startHour + (long) H - 1 : H - 1);
+        final WarehouseTimeline wh = ledger != null && minUnits > 0 ? ledger.warehouse() : null;
+        warehouseLimited = wh != null;
+        reset(n);
+        if (startHour >= H) return;
+
+        earliest[origin] = startHour;
+        if (wh == null || wh.fits(origin, startHour, startHour + WarehouseTimeline.PICKUP_HOURS, minUnits)) {
+            reachedAt[origin] = startHour;
+        }
+        int scanned = 0;
+
+        final int first = cs.firstAt[startHour];
+        scanning:
+        for (int lap = 0; lap < (cyclic ? 2 : 1); lap++) {
+            final int lo = lap == 0 ? first : 0, hi = lap == 0 ? cs.size : first, shift = lap * H;
+            for (int c = lo; c < hi; c++) {
+                final int dep = cs.departure[c] + shift;
+                if (dep > endHour || (dest >= 0 && dep >= reachedAt[dest])) break scanning;
+                scanned++;
+                final int a = cs.from[c], at = earliest[a];
+                if (at > dep) continue; // aún no se llegó a ese aeropuerto
+                final int arr = cs.arrival[c] + shift, b = cs.to[c];
+                if (arr > endHour || (arr >= earliest[b] && arr >= reachedAt[b])) continue;
+                final int inst = cs.instance[c];
+                // Si no hay capacidad (o no cabe la estadía previa en almacén), lo ignoramos
+                int left = ledger != null ? ledger.remaining(inst) : g.sharedRemaining(inst);
+                if (left < minUnits) continue;
+                if (wh != null && !wh.fits(a, at, dep, minUnits)) continue;
+
+                if (arr < earliest[b]) {
+                    earliest[b] = arr;
+                    inInst[b] = inst;
+                    inFrom[b] = a;
+                }
+                if (arr < reachedAt[b]
+                        && (wh == null || wh.fits(b, arr, arr + WarehouseTimeline.PICKUP_HOURS, minUnits))) {
+                    reachedAt[b] = arr;
+                    reachedInst[b] = inst;
+                    reachedFrom[b] = a;
+                }
+            }
+        }
+
+        PlannerMetrics m = metrics;
+        if (m != null) {
+            m.searches.increment();
+            m.nodesExpanded.add(scanned);
+        }
+    }
+
+    private void reset(int airports) {
+        if (earliest.length != airports) {
+            earliest = new int[airports];
+            inInst = new int[airports];
+            inFrom = new int[airports];
+            reachedAt = new int[airports];
+            reachedInst = new int[airports];
+            reachedFrom = new int[airports];
+        }
+        Arrays.fill(earliest, NONE);
+        Arrays.fill(reachedAt, NONE);
+        Arrays.fill(inInst, -1);
+        Arrays.fill(reachedInst, -1);
+    }
+
+    private int reconstruct(int airport) {
+        int n = 0;
+        if (reachedInst[airport] >= 0) {
+            n = 1;
+            for (int a = reachedFrom[airport]; inInst[a] >= 0; a = inFrom[a]) n++;
+        }
+        if (n > legs.length) legs = new int[Math.max(n, legs.length * 2)];
+        legCount = n;
+        if (n > 0) {
+            legs[--n] = reachedInst[airport];
+            for (int a = reachedFrom[airport]; inInst[a] >= 0; a = inFrom[a]) legs[--n] = inInst[a];
+        }
+        return reachedAt[airport];
+    }
+}
@@ -0,0 +1,53 @@
+package com.morapack.mpa.graph;
+
+/**
+ * Horario de conexiones del TEGraph: una entrada por instancia de vuelo existente,
+ * ordenadas por hora de salida (desempate por id) en arreglos paralelos:
+ * - departure/arrival: horas del ciclo (arrival puede superar hours() si es cíclico)
+ * - from/to: aeropuertos; instance: id de FlightInstance
+ * - firstAt[h]: primera conexión con salida >= h (tamaño hours() + 1)
+ *
+ * Inmutable tras construirse; puede compartirse entre hilos.
+ */
+public final class Connections {
+    public final int size;
+    public final int[] departure;
+    public final int[] arrival;
+    public final int[] from;
+    public final int[] to;
+    public final int[] instance;
+    public final int[] firstAt;
+
+    Connections(TEGraph g) {
+        final TEGraph.Schedule sc = g.schedule();
+        final int H = sc.hours, total = sc.instanceCount();
+        firstAt = new int[H + 1];
+        int n = 0;
+        for (int id = 0; id < total; id++) {
+            if (!g.exists(id)) continue;
+            firstAt[g.departureHour(id) + 1]++;
+            n++;
+        }
+        for (int h = 0; h < H; h++) firstAt[h + 1] += firstAt[h];
+
+        // counting sort por hora de salida (estable: ids crecientes dentro de la misma hora)
+        size = n;
+        departure = new int[n];
+        arrival = new int[n];
+        from = new int[n];
+        to = new int[n];
+        instance = new int[n];
+        int[] fill = firstAt.clone();
+        for (int f = 0; f < sc.perDay.length; f++) {
+            for (int id = sc.base[f]; id < sc.base[f + 1]; id++) {
+                if (!g.exists(id)) continue;
+                int dep = g.departureHour(id), c = fill[dep]++;
+                departure[c] = dep;
+                arrival[c] = dep + sc.duration[f];
+                from[c] = sc.origin[f];
+                to[c] = sc.dest[f];
+                instance[c] = id;
+            }
+        }
+    }
+}
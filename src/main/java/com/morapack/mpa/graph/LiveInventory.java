@@ -0,0 +1,74 @@
+package com.morapack.mpa.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inventario vivo de cupos sobre las instancias compartidas de un TEGraph, para el servicio
+ * de reservas en línea (muchos hilos reservando a la vez, sin lock global):
+ * - reserve(...): reserva multi-tramo todo o nada; cada tramo con CAS (FlightInstance.book)
+ *   y, si alguno no tiene cupo, rollback de los ya tomados
+ * - book(...): busca la ruta más temprana con el cupo vigente y la reserva; si otro hilo
+ *   ganó un tramo entre la búsqueda y la reserva, vuelve a buscar (hasta MAX_ATTEMPTS)
+ *
+ * Nunca sobrevende: el cupo de cada instancia sólo baja por CAS exitoso. Un rollback puede
+ * hacer fallar transitoriamente a otra reserva que vio el cupo tomado (se reintenta en book).
+ * Los PathFinder no son thread-safe: cada hilo pasa el suyo.
+ */
+public class LiveInventory {
+    public static final int MAX_ATTEMPTS = 4;
+
+    private final TEGraph graph;
+    public final LongAdder booked = new LongAdder();     // reservas exitosas
+    public final LongAdder conflicts = new LongAdder();  // reservas perdidas contra otro hilo
+    public final LongAdder rejected = new LongAdder();   // sin ruta factible (o sin cupo tras reintentar)
+
+    public LiveInventory(TEGraph graph) { this.graph = graph; }
+
+    public int remaining(int instanceId) { return graph.sharedRemaining(instanceId); }
+
+    /** Reserva 'units' en todos los tramos o en ninguno. */
+    public boolean reserve(int[] legs, int legCount, int units) {
+        for (int k = 0; k < legCount; k++) {
+            if (!graph.instance(legs[k]).book(units)) {
+                for (int j = 0; j < k; j++) graph.instance(legs[j]).release(units);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Libera una reserva hecha con reserve(...) o book(...) (p.ej. cancelación). */
+    public void release(int[] legs, int legCount, int units) {
+        for (int k = 0; k < legCount; k++) graph.instance(legs[k]).release(units);
+    }
+
+    /**
+     * Ruta más temprana de origin@startHour a dest (<= deadline) con cupo para 'units',
+     * reservada atómicamente. Devuelve los tramos reservados o null si no hay ruta.
+     */
+    public int[] book(PathFinder finder, int origin, int startHour, int dest, int deadlineHour, int units) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int arrival = finder.route(graph, null, origin, startHour, dest, deadlineHour, units);
+            if (arrival < 0) break;
+            int[] legs = Arrays.copyOf(finder.legs(), finder.legCount());
+            if (reserve(legs, legs.length, units)) {
+                booked.increment();
+                return legs;
+            }
+            conflicts.increment();
+        }
+        rejected.increment();
+        return null;
+    }
+
+    /** Foto del cupo vigente como ledger, para planificar (MPAPlanner.withBaseline) sin tocar el inventario. */
+    public CapacityLedger snapshot() { return CapacityLedger.ofShared(graph); }
+
+    /** Cupo total vendido (para auditoría: nunca supera la capacidad de cada instancia). */
+    public long unitsBooked() {
+        long sum = 0;
+        for (int id = 0, n = graph.instanceCount(); id < n; id++) sum += graph.capacityOf(id) - graph.sharedRemaining(id);
+        return sum;
+    }
+}
@@ -1,22 +1,27 @@
 package com.morapack.mpa.graph;
 
-import com.morapack.mpa.domain.FlightInstance;
+import com.morapack.mpa.metrics.PlannerMetrics;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Dijkstra en tiempo discreto (0..167):
- * - Estado = Node (airport@hour)
- * - Costo = hora de llegada (minimizar)
- * - Restricción de conexión mínima: sólo se puede tomar arista de vuelo
- *   si la hora actual cumple con la salida exacta del vuelo (modelado por arista).
- * - Check de capacidad: sólo consideramos aristas de vuelo cuya instancia tenga cupo.
+ * Ruta de llegada más temprana en tiempo discreto (horas del horizonte del TEGraph),
+ * respetando cupos del CapacityLedger (o de las instancias compartidas si no hay ledger)
+ * y, con ledger, la ocupación de almacén de cada estadía. Dos motores:
+ * - TimeExpandedPathFinder: barrido por horas sobre los nodos airport@hour (esperas incluidas)
+ * - ConnectionScanPathFinder: un solo recorrido de las salidas ordenadas por hora, con
+ *   llegada más temprana por aeropuerto (sin aristas de espera)
  *
- * Retorna la lista de aristas a "consumir" (para poder reservar cupos).
+ * route(...) deja los tramos (ids de FlightInstance) en legs()[0..legCount()), válidos hasta
+ * la próxima búsqueda; sweep(...) calcula el árbol completo desde un origen. Las instancias
+ * no son thread-safe: cada hilo/decodificador usa la suya.
+ *
+ * Los métodos estáticos reservan/liberan rutas ya encontradas (cupos y almacén) en un ledger.
  */
-public class PathFinder {
+public interface PathFinder {
 
-    public static class PathResult {
+    class PathResult {
         public final List<TEGraph.Edge> edges;
         public final int arrivalHour;
         public PathResult(List<TEGraph.Edge> edges, int arrivalHour) {
@@ -24,58 +29,160 @@ public class PathFinder {
         }
     }
 
+    /** Cuenta búsquedas y nodos expandidos en 'metrics' (null para desactivar). */
+    void setMetrics(PlannerMetrics metrics);
+
+    /**
+     * Llegada más temprana de origin@startHour a cualquier hora de dest (<= deadline).
+     * Devuelve la hora de llegada o -1 si no hay ruta; los tramos quedan en legs()[0..legCount()).
+     */
+    default int route(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int deadlineHour) {
+        return route(g, ledger, origin, startHour, dest, deadlineHour, 1);
+    }
+
+    /** Igual que route(...), pero sólo por vuelos (y almacenes) con lugar para 'units' unidades. */
+    int route(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int deadlineHour, int units);
+
+    /**
+     * Árbol de llegada más temprana desde origin@startHour hacia todos los aeropuertos
+     * (hasta el fin del horizonte, o un ciclo completo si es cíclico). Sólo usa vuelos con
+     * cupo >= minUnits (0 = ignora capacidad). Consultar luego con arrivalAt(a) y legsTo(a).
+     */
+    void sweep(TEGraph g, CapacityLedger ledger, int origin, int startHour, int minUnits);
+
+    /** Hora de llegada más temprana a 'airport' en el último sweep, o -1 si no se alcanzó. */
+    int arrivalAt(int airport);
+
+    /** Deja en legs() los tramos hacia 'airport' del último sweep y devuelve su hora de llegada (o -1). */
+    int legsTo(TEGraph g, int airport);
+
+    /** Tramos de vuelo (ids de FlightInstance) de la última ruta; válido hasta la próxima búsqueda. */
+    int[] legs();
+    int legCount();
+
     /** Búsqueda desde (origen, startHour) hasta primer nodo dest con hora <= deadline. */
-    public PathResult find(TEGraph g, TEGraph.Node start, String destAirport, int deadlineHour) {
-        // Dijkstra por niveles de hora
-        Map<TEGraph.Node, Integer> dist = new HashMap<>();
-        Map<TEGraph.Node, TEGraph.Edge> prev = new HashMap<>();
-        PriorityQueue<TEGraph.Node> pq = new PriorityQueue<>(Comparator.comparingInt(dist::get));
-
-        dist.put(start, start.hour);
-        pq.add(start);
-
-        while (!pq.isEmpty()) {
-            TEGraph.Node u = pq.poll();
-            int du = dist.get(u);
-            if (u.airport.code().equals(destAirport) && du <= deadlineHour) {
-                // reconstruir
-                List<TEGraph.Edge> edges = new ArrayList<>();
-                TEGraph.Node cur = u;
-                while (prev.containsKey(cur)) {
-                    TEGraph.Edge e = prev.get(cur);
-                    edges.add(e);
-                    cur = e.from;
-                }
-                Collections.reverse(edges);
-                return new PathResult(edges, du);
-            }
-            if (du > deadlineHour) continue;
+    default PathResult find(TEGraph g, TEGraph.Node start, String destAirport, int deadlineHour) {
+        return find(g, null, start, destAirport, deadlineHour);
+    }
 
-            for (TEGraph.Edge e: g.edges(u)) {
-                // Si es vuelo y no hay capacidad, lo ignoramos
-                if (e.isFlight) {
-                    FlightInstance inst = e.instance;
-                    if (inst.remainingCapacity() <= 0) continue;
-                }
-                int dv = e.to.hour;
-                if (!dist.containsKey(e.to) || dv < dist.get(e.to)) {
-                    dist.put(e.to, dv);
-                    prev.put(e.to, e);
-                    pq.add(e.to);
-                }
+    /** Igual que find(...), pero consultando el cupo en el ledger dado (null = instancias compartidas). */
+    default PathResult find(TEGraph g, CapacityLedger ledger, TEGraph.Node start, String destAirport, int deadlineHour) {
+        int airport = g.airportOf(start.id);
+        int arrival = route(g, ledger, airport, start.hour, g.airportIndex(destAirport), deadlineHour);
+        if (arrival < 0) return null; // no hay ruta factible
+
+        // Fachada: materializa las aristas (esperas de 1h incluidas) a partir de los tramos
+        final int H = g.hours();
+        List<TEGraph.Edge> edges = new ArrayList<>();
+        int at = start.hour;
+        for (int k = 0, n = legCount(); k < n; k++) {
+            int inst = legs()[k], dep0 = g.departureHour(inst), dep = g.nextOccurrence(dep0, at);
+            for (; at < dep; at++) {
+                edges.add(new TEGraph.Edge(g.node(g.nodeId(airport, at % H)), g.node(g.nodeId(airport, (at + 1) % H)), false, null));
             }
+            int to = g.arrivalAirport(inst), arr = dep + (g.arrivalHour(inst) - dep0);
+            edges.add(new TEGraph.Edge(g.node(g.nodeId(airport, dep % H)), g.node(g.nodeId(to, arr % H)), true, g.instance(inst)));
+            airport = to;
+            at = arr;
         }
-        return null; // no hay ruta factible
+        return new PathResult(edges, arrival);
     }
 
-    /** Aplica reservas de capacidad a las aristas de vuelo de la ruta. */
-    public static boolean reservePath(List<TEGraph.Edge> edges, int units) {
-        // Verificamos otra vez (evita condición de carrera si planificas en paralelo)
+    /** Reserva todos los tramos en el ledger o ninguno (sólo cupos de vuelo; ver reserveRoute). */
+    public static boolean reserveLegs(CapacityLedger ledger, int[] legs, int legCount, int units) {
+        for (int k = 0; k < legCount; k++) {
+            if (!ledger.canBook(legs[k], units)) return false;
+        }
+        for (int k = 0; k < legCount; k++) ledger.book(legs[k], units);
+        return true;
+    }
+
+    /**
+     * Reserva la ruta completa o nada: cupo en cada tramo y estadías de almacén en origen
+     * (desde 'release'), escalas y destino (PICKUP_HOURS tras la llegada).
+     */
+    public static boolean reserveRoute(TEGraph g, CapacityLedger ledger, int origin, int release,
+                                       int[] legs, int legCount, int units) {
+        final WarehouseTimeline wh = ledger.warehouse();
+        int airport = origin, at = release;
+        for (int k = 0; k < legCount; k++) {
+            int inst = legs[k], dep0 = g.departureHour(inst), dep = g.nextOccurrence(dep0, at);
+            if (!ledger.canBook(inst, units) || !wh.fits(airport, at, dep, units)) return false;
+            airport = g.arrivalAirport(inst);
+            at = dep + (g.arrivalHour(inst) - dep0);
+        }
+        if (!wh.fits(airport, at, at + WarehouseTimeline.PICKUP_HOURS, units)) return false;
+        bookRoute(g, ledger, origin, release, legs, legCount, units);
+        return true;
+    }
+
+    /**
+     * Unidades que aún caben en toda la ruta: mínimo entre el cupo de cada tramo y la
+     * holgura de almacén de cada estadía (origen, escalas y retiro en destino).
+     */
+    public static int bottleneck(TEGraph g, CapacityLedger ledger, int origin, int release, int[] legs, int legCount) {
+        final WarehouseTimeline wh = ledger.warehouse();
+        int airport = origin, at = release, room = Integer.MAX_VALUE;
+        for (int k = 0; k < legCount; k++) {
+            int inst = legs[k], dep0 = g.departureHour(inst), dep = g.nextOccurrence(dep0, at);
+            room = Math.min(room, ledger.remaining(inst));
+            if (dep > at) room = Math.min(room, wh.capacity(airport) - wh.peak(airport, at, dep));
+            airport = g.arrivalAirport(inst);
+            at = dep + (g.arrivalHour(inst) - dep0);
+        }
+        room = Math.min(room, wh.capacity(airport) - wh.peak(airport, at, at + WarehouseTimeline.PICKUP_HOURS));
+        return Math.max(0, room);
+    }
+
+    /**
+     * Como reserveRoute(...) pero sin verificar (re-aplicar una ruta ya validada en el mismo estado).
+     * Con 'units' negativo libera la reserva (rollback).
+     */
+    public static void bookRoute(TEGraph g, CapacityLedger ledger, int origin, int release,
+                                 int[] legs, int legCount, int units) {
+        for (int k = 0; k < legCount; k++) ledger.book(legs[k], units);
+        bookStays(g, ledger.warehouse(), origin, release, legs, legCount, units);
+    }
+
+    /** Sólo las estadías de almacén de la ruta (origen, escalas y retiro en destino), sin cupos de vuelo. */
+    public static void bookStays(TEGraph g, WarehouseTimeline wh, int origin, int release,
+                                 int[] legs, int legCount, int units) {
+        int airport = origin, at = release;
+        for (int k = 0; k < legCount; k++) {
+            int inst = legs[k], dep0 = g.departureHour(inst), dep = g.nextOccurrence(dep0, at);
+            wh.add(airport, at, dep, units);
+            airport = g.arrivalAirport(inst);
+            at = dep + (g.arrivalHour(inst) - dep0);
+        }
+        wh.add(airport, at, at + WarehouseTimeline.PICKUP_HOURS, units);
+    }
+
+    /** Aplica reservas de capacidad en el ledger (no toca las instancias compartidas). */
+    public static boolean reservePath(CapacityLedger ledger, List<TEGraph.Edge> edges, int units) {
         for (TEGraph.Edge e: edges) {
-            if (e.isFlight && e.instance.remainingCapacity() < units) return false;
+            if (e.isFlight && !ledger.canBook(e.instance.id(), units)) return false;
         }
         for (TEGraph.Edge e: edges) {
-            if (e.isFlight) e.instance.book(units);
+            if (e.isFlight) ledger.book(e.instance.id(), units);
+        }
+        return true;
+    }
+
+    /**
+     * Aplica reservas de capacidad a las aristas de vuelo de la ruta (estado compartido del grafo).
+     * Todo o nada y seguro entre hilos: cada tramo se reserva con CAS y, si uno no tiene cupo,
+     * se liberan los ya tomados.
+     */
+    public static boolean reservePath(List<TEGraph.Edge> edges, int units) {
+        for (int k = 0; k < edges.size(); k++) {
+            TEGraph.Edge e = edges.get(k);
+            if (e.isFlight && !e.instance.book(units)) {
+                for (int j = 0; j < k; j++) {
+                    TEGraph.Edge b = edges.get(j);
+                    if (b.isFlight) b.instance.release(units);
+                }
+                return false;
+            }
         }
         return true;
     }
@@ -0,0 +1,52 @@
+package com.morapack.mpa.graph;
+
+import java.util.Arrays;
+
+/**
+ * Índice de alcanzabilidad sin capacidad, construido una vez por TEGraph:
+ * - earliest(o, d): llegada más temprana desde o@0 hasta d ignorando cupos (-1 = inalcanzable)
+ * - path(o, d): tramos (ids de FlightInstance) de esa ruta óptima
+ *
+ * Como las reservas sólo quitan aristas, earliest(o, d) es cota inferior de cualquier
+ * ruta con cupos: si supera el deadline la orden se rechaza en O(1), y si la ruta
+ * cacheada aún tiene cupo es óptima y se reserva sin buscar. En horizonte cíclico una ruta
+ * puede cruzar el fin del ciclo sin ser alcanzable desde o@0, así que -1 no descarta.
+ *
+ * Inmutable tras construirse; puede compartirse entre hilos.
+ */
+public class ReachabilityIndex {
+    private static final int[] NO_PATH = new int[0];
+
+    private final int airports;
+    private final boolean cyclic;
+    private final int[] earliest; // [o * airports + d]
+    private final int[][] paths;  // [o * airports + d]
+
+    ReachabilityIndex(TEGraph g) {
+        this.airports = g.airportCount();
+        this.cyclic = g.isCyclic();
+        this.earliest = new int[airports * airports];
+        this.paths = new int[airports * airports][];
+        PathFinder pf = new TimeExpandedPathFinder();
+        for (int o = 0; o < airports; o++) {
+            pf.sweep(g, null, o, 0, 0);
+            for (int d = 0; d < airports; d++) {
+                int k = o * airports + d;
+                earliest[k] = pf.legsTo(g, d);
+                paths[k] = earliest[k] < 0 ? NO_PATH : Arrays.copyOf(pf.legs(), pf.legCount());
+            }
+        }
+    }
+
+    /** Llegada más temprana sin capacidad desde origin@0 a dest, o -1 si no hay ruta en el horizonte. */
+    public int earliest(int origin, int dest) { return earliest[origin * airports + dest]; }
+
+    /** Tramos de la ruta de llegada más temprana (arreglo compartido: no modificar). */
+    public int[] path(int origin, int dest) { return paths[origin * airports + dest]; }
+
+    /** true si la orden no puede llegar antes del deadline aun con capacidad ilimitada. */
+    public boolean unreachable(int origin, int dest, int deadlineHour) {
+        int e = earliest(origin, dest);
+        return e < 0 ? !cyclic : e > deadlineHour;
+    }
+}
@@ -4,21 +4,42 @@ import com.morapack.mpa.domain.Airport;
 import com.morapack.mpa.domain.Flight;
 import com.morapack.mpa.domain.FlightInstance;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Grafo tiempo-expandido semanal:
+ * Grafo tiempo-expandido sobre un horizonte de 'weeks' semanas (hours() = weeks * 168):
  * - Nodo (airportCode, hour)
  * - Aristas de espera (hora t -> t+1 en el mismo aeropuerto)
  * - Aristas de vuelo: t(departure) -> t+dur(arrival) si hay FlightInstance
  *
- * Para enrutamiento, delegamos a PathFinder (Dijkstra creciente en tiempo).
+ * Nada se materializa por nodo ni por instancia: como los vuelos se repiten cada día, el
+ * grafo se describe con una plantilla diaria (Schedule) de salidas por (aeropuerto, hora del
+ * día) y las instancias se numeran aritméticamente:
+ *   id = base[vuelo] + día * frecuencia[vuelo] + k   (k-ésima salida del día)
+ * Node/Edge/FlightInstance se crean a pedido como fachada; los FlightInstance (que llevan el
+ * cupo compartido) se guardan al crearse para conservar su identidad.
+ *
+ * Horizonte:
+ * - Lineal (por defecto): los vuelos que llegarían después del fin del horizonte no existen.
+ * - Cíclico: el calendario se repite; un vuelo que cruza el fin llega al ciclo siguiente.
+ *   Las horas que maneja PathFinder son absolutas (pueden superar hours()) y se reducen
+ *   módulo hours() para ubicar nodos, instancias y ocupación de almacén.
+ *
+ * La plantilla se compila de forma perezosa tras el último addFlightWeekly y es inmutable,
+ * por lo que puede compartirse entre hilos. Para enrutamiento, delegamos a PathFinder.
  */
 public class TEGraph {
+    /** Horas por semana (horizonte por defecto). */
+    public static final int HOURS = 168;
+    public static final int DAY = 24;
+
     public static class Node {
+        public final int id;       // airportIndex * hours() + hour
         public final Airport airport;
-        public final int hour; // 0..167
-        public Node(Airport airport, int hour) { this.airport = airport; this.hour = hour; }
+        public final int hour;     // 0..hours()-1
+        public Node(int id, Airport airport, int hour) { this.id = id; this.airport = airport; this.hour = hour; }
         @Override public String toString() { return airport.code() + "@" + hour; }
     }
 
@@ -33,69 +54,288 @@ public class TEGraph {
         }
     }
 
-    private final Map<String, Airport> airportsByCode;
-    // indexación: airportCode -> lista de nodos por hora
-    private final Map<String, Node[]> nodesByAirport = new HashMap<>();
-    // adjacency: Node -> edges
-    private final Map<Node, List<Edge>> adj = new HashMap<>();
-    // catálogo de instancias de vuelo: para aplicar reservas
-    private final List<FlightInstance> allInstances = new ArrayList<>();
+    /**
+     * Plantilla diaria inmutable (arreglos compartidos; no modificar):
+     * salidas de (aeropuerto a, hora del día d) = entradas offset[a*24+d]..offset[a*24+d+1]
+     * de flight[]/slot[]; los demás arreglos son por vuelo.
+     */
+    public static final class Schedule {
+        public final int hours;
+        public final boolean cyclic;
+        public final int[] offset;   // tamaño airports * 24 + 1
+        public final int[] flight;   // índice de vuelo por entrada
+        public final int[] slot;     // k (salida del día) por entrada
+        public final int[] origin;   // por vuelo
+        public final int[] dest;
+        public final int[] duration; // horas (>= 1)
+        public final int[] perDay;
+        public final int[] step;     // horas entre salidas del día
+        public final int[] capacity;
+        public final int[] base;     // primer id de instancia por vuelo (tamaño vuelos + 1)
+        Schedule(int hours, boolean cyclic, int[] offset, int[] flight, int[] slot, int[] origin, int[] dest,
+                 int[] duration, int[] perDay, int[] step, int[] capacity, int[] base) {
+            this.hours = hours; this.cyclic = cyclic; this.offset = offset; this.flight = flight; this.slot = slot;
+            this.origin = origin; this.dest = dest; this.duration = duration; this.perDay = perDay;
+            this.step = step; this.capacity = capacity; this.base = base;
+        }
+        public int instanceCount() { return base[base.length - 1]; }
+    }
+
+    private final Airport[] airports;
+    private final Map<String, Integer> airportIndex = new HashMap<>();
+    private final int hours;
+    private final boolean cyclic;
+    private final List<Flight> flights = new ArrayList<>();
+    private final Map<Flight, Integer> flightIndex = new IdentityHashMap<>();
+
+    private volatile Schedule schedule;
+    private volatile AtomicReferenceArray<FlightInstance> instances = new AtomicReferenceArray<>(0);
+    // Marca de una celda ya trasladada al arreglo nuevo por compile() (ver instance(...))
+    private static final FlightInstance MOVED =
+            new FlightInstance(-1, new Flight("", null, null, Duration.ZERO, 0, 0), -1, -1);
+    private volatile ReachabilityIndex reachability;
+    private volatile Connections connections;
 
+    /** Grafo semanal (una semana, horizonte lineal). */
     public TEGraph(Collection<Airport> airports) {
-        this.airportsByCode = new HashMap<>();
-        for (Airport a: airports) airportsByCode.put(a.code(), a);
-        buildNodes();
-        buildWaitEdges();
-    }
-
-    private void buildNodes() {
-        for (Airport a: airportsByCode.values()) {
-            Node[] arr = new Node[168];
-            for (int h = 0; h < 168; h++) {
-                arr[h] = new Node(a, h);
-                adj.put(arr[h], new ArrayList<>());
+        this(airports, 1, false);
+    }
+
+    /** Grafo de 'weeks' semanas; 'cyclic' = el calendario se repite al cruzar el fin del horizonte. */
+    public TEGraph(Collection<Airport> airports, int weeks, boolean cyclic) {
+        if (weeks < 1) throw new IllegalArgumentException("weeks debe ser >= 1: " + weeks);
+        this.airports = airports.toArray(new Airport[0]);
+        this.hours = weeks * HOURS;
+        this.cyclic = cyclic;
+        for (int a = 0; a < this.airports.length; a++) airportIndex.put(this.airports[a].code(), a);
+    }
+
+    /** Agrega un vuelo recurrente según su frecuencia por día (instancias implícitas en todo el horizonte). */
+    public synchronized void addFlightWeekly(Flight flight) {
+        flightIndex.put(flight, flights.size());
+        flights.add(flight);
+        schedule = null; // recompilar plantilla en el próximo acceso
+        reachability = null;
+        connections = null;
+    }
+
+    /** Plantilla actual (se compila si hubo vuelos nuevos desde la última vez). */
+    public Schedule schedule() {
+        Schedule sc = schedule;
+        return sc != null ? sc : compile();
+    }
+
+    private synchronized Schedule compile() {
+        if (schedule != null) return schedule;
+        final int nF = flights.size(), nA = airports.length, days = hours / DAY;
+        int[] origin = new int[nF], dest = new int[nF], duration = new int[nF];
+        int[] perDay = new int[nF], step = new int[nF], capacity = new int[nF], base = new int[nF + 1];
+        int[] offset = new int[nA * DAY + 1];
+        for (int f = 0; f < nF; f++) {
+            Flight fl = flights.get(f);
+            perDay[f] = Math.min(DAY, Math.max(0, fl.frequencyPerDay()));
+            step[f] = DAY / Math.max(1, perDay[f]);                   // ej: 2 vuelos -> cada 12h
+            duration[f] = Math.max(1, (int) fl.duration().toHours()); // toda arista avanza >= 1h
+            origin[f] = airportIndex.get(fl.origin().code());
+            dest[f] = airportIndex.get(fl.destination().code());
+            capacity[f] = fl.capacityPerInstance();
+            base[f + 1] = base[f] + days * perDay[f];
+            for (int k = 0; k < perDay[f]; k++) offset[origin[f] * DAY + k * step[f] + 1]++;
+        }
+        for (int i = 0; i < nA * DAY; i++) offset[i + 1] += offset[i];
+
+        int[] flight = new int[offset[nA * DAY]], slot = new int[offset[nA * DAY]];
+        int[] fill = Arrays.copyOf(offset, nA * DAY);
+        for (int f = 0; f < nF; f++) {
+            for (int k = 0; k < perDay[f]; k++) {
+                int e = fill[origin[f] * DAY + k * step[f]]++;
+                flight[e] = f;
+                slot[e] = k;
             }
-            nodesByAirport.put(a.code(), arr);
         }
+        Schedule sc = new Schedule(hours, cyclic, offset, flight, slot, origin, dest, duration, perDay, step, capacity, base);
+
+        // Conservar los FlightInstance ya creados (los ids de vuelos previos no cambian). Cada celda
+        // vacía del arreglo viejo se sella con MOVED por CAS: un instance(...) concurrente que aún
+        // lee el viejo no puede publicar ahí una segunda instancia del mismo id; ve MOVED y espera
+        // el arreglo nuevo. Las celdas ya creadas se copian tal cual (mismo objeto, mismo cupo).
+        AtomicReferenceArray<FlightInstance> old = instances;
+        AtomicReferenceArray<FlightInstance> fresh = new AtomicReferenceArray<>(sc.instanceCount());
+        for (int i = 0; i < old.length(); i++) {
+            FlightInstance fi;
+            while ((fi = old.get(i)) == null && !old.compareAndSet(i, null, MOVED)) { }
+            if (fi != null) fresh.set(i, fi);
+        }
+        instances = fresh;
+        schedule = sc;
+        return sc;
     }
 
-    private void buildWaitEdges() {
-        for (Node[] arr: nodesByAirport.values()) {
-            for (int h = 0; h < 167; h++) {
-                Node u = arr[h];
-                Node v = arr[h+1];
-                adj.get(u).add(new Edge(u, v, false, null)); // esperar 1h
-            }
+    /** Índice de llegadas más tempranas sin capacidad (se construye una vez por versión del grafo). */
+    public ReachabilityIndex reachability() {
+        ReachabilityIndex r = reachability;
+        if (r != null) return r;
+        synchronized (this) {
+            if (reachability == null) reachability = new ReachabilityIndex(this);
+            return reachability;
         }
     }
 
-    /** Agrega instancias de un vuelo recurrente según frecuencia por día. */
-    public void addFlightWeekly(Flight flight) {
-        int perDay = flight.frequencyPerDay();
-        int step = 24 / Math.max(1, perDay); // ej: 2 vuelos -> cada 12h
-        int durH = (int) flight.duration().toHours();
+    /** Salidas ordenadas por hora para ConnectionScanPathFinder (se construye una vez por versión del grafo). */
+    public Connections connections() {
+        Connections c = connections;
+        if (c != null) return c;
+        synchronized (this) {
+            if (connections == null) connections = new Connections(this);
+            return connections;
+        }
+    }
 
-        Node[] originNodes = nodesByAirport.get(flight.origin().code());
-        Node[] destNodes = nodesByAirport.get(flight.destination().code());
+    // --- Horizonte ---
+    public int hours() { return hours; }
+    public boolean isCyclic() { return cyclic; }
 
-        for (int day = 0; day < 7; day++) {
-            for (int k = 0; k < perDay; k++) {
-                int depHour = day*24 + k*step;
-                int arrHour = depHour + durH;
-                if (arrHour >= 168) continue; // no cruzamos semana en este modelo
+    /**
+     * Primera hora absoluta >= notBefore que corresponde a la hora de ciclo 'cycleHour'
+     * (en horizonte lineal, la misma hora).
+     */
+    public int nextOccurrence(int cycleHour, int notBefore) {
+        return cyclic ? notBefore + Math.floorMod(cycleHour - notBefore, hours) : cycleHour;
+    }
 
-                FlightInstance inst = new FlightInstance(flight, depHour, arrHour);
-                allInstances.add(inst);
+    // --- Índices densos ---
+    public int airportCount() { return airports.length; }
+    public int nodeCount() { return airports.length * hours; }
+    public Airport airport(int airportIdx) { return airports[airportIdx]; }
+    public int airportIndex(String airportCode) { return airportIndex.get(airportCode); }
+    public int nodeId(int airportIdx, int hour) { return airportIdx * hours + hour; }
+    public int airportOf(int nodeId) { return nodeId / hours; }
+    public int hourOf(int nodeId) { return nodeId % hours; }
 
-                Node u = originNodes[depHour];
-                Node v = destNodes[arrHour];
-                adj.get(u).add(new Edge(u, v, true, inst));
-            }
+    // --- Instancias (aritméticas; ver Schedule) ---
+    public int instanceCount() { return schedule().instanceCount(); }
+    public int flightCount() { return flights.size(); }
+    public Flight flight(int flightIdx) { return flights.get(flightIdx); }
+    public int flightIndex(Flight flight) { return flightIndex.get(flight); }
+
+    /** Vuelo (índice) al que pertenece la instancia. */
+    public int flightOf(int instanceId) {
+        int[] base = schedule().base;
+        int lo = 0, hi = base.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (base[mid] <= instanceId) lo = mid; else hi = mid - 1;
         }
+        return lo;
+    }
+
+    /** Hora de salida (en el ciclo, 0..hours()-1). */
+    public int departureHour(int instanceId) {
+        Schedule sc = schedule();
+        int f = flightOf(instanceId), local = instanceId - sc.base[f];
+        return (local / sc.perDay[f]) * DAY + (local % sc.perDay[f]) * sc.step[f];
     }
 
-    public Node node(String airportCode, int hour) { return nodesByAirport.get(airportCode)[hour]; }
-    public List<Edge> edges(Node node) { return adj.getOrDefault(node, List.of()); }
-    public Collection<Node[]> nodesByAirport() { return nodesByAirport.values(); }
-    public List<FlightInstance> allInstances() { return allInstances; }
+    /** Hora de llegada = salida + duración (en horizonte cíclico puede superar hours()). */
+    public int arrivalHour(int instanceId) {
+        return departureHour(instanceId) + schedule().duration[flightOf(instanceId)];
+    }
+
+    public int departureAirport(int instanceId) { return schedule().origin[flightOf(instanceId)]; }
+    public int arrivalAirport(int instanceId) { return schedule().dest[flightOf(instanceId)]; }
+
+    /** false si la instancia llegaría después del fin de un horizonte lineal (no se usa). */
+    public boolean exists(int instanceId) {
+        return cyclic || arrivalHour(instanceId) < hours;
+    }
+
+    /** Capacidad nominal de la instancia (0 si no existe). */
+    public int capacityOf(int instanceId) {
+        return exists(instanceId) ? schedule().capacity[flightOf(instanceId)] : 0;
+    }
+
+    /** Id de la salida de 'flightIdx' a la hora de ciclo dada, o -1 si no sale a esa hora. */
+    public int instanceId(int flightIdx, int departureHour) {
+        Schedule sc = schedule();
+        if (departureHour < 0 || departureHour >= hours) return -1;
+        int rem = departureHour % DAY;
+        if (rem % sc.step[flightIdx] != 0 || rem / sc.step[flightIdx] >= sc.perDay[flightIdx]) return -1;
+        int id = sc.base[flightIdx] + (departureHour / DAY) * sc.perDay[flightIdx] + rem / sc.step[flightIdx];
+        return exists(id) ? id : -1;
+    }
+
+    /**
+     * FlightInstance (con el cupo compartido); se crea en el primer acceso. Hay un único objeto
+     * por id aunque addFlightWeekly(...) recompile la plantilla a la vez (ver compile()).
+     */
+    public FlightInstance instance(int instanceId) {
+        schedule();
+        for (;;) {
+            AtomicReferenceArray<FlightInstance> arr = instances;
+            FlightInstance fi = existing(arr, instanceId);
+            if (fi == MOVED) continue;
+            if (fi != null) return fi;
+            fi = new FlightInstance(instanceId, flights.get(flightOf(instanceId)), departureHour(instanceId), arrivalHour(instanceId));
+            if (arr.compareAndSet(instanceId, null, fi)) return fi;
+            // otro hilo la creó o compile() selló la celda: releer
+        }
+    }
+
+    /** Cupo compartido restante sin materializar la instancia si nadie la reservó todavía. */
+    public int sharedRemaining(int instanceId) {
+        schedule();
+        for (;;) {
+            FlightInstance fi = existing(instances, instanceId);
+            if (fi == MOVED) continue;
+            return fi != null ? fi.remainingCapacity() : capacityOf(instanceId);
+        }
+    }
+
+    /** Celda de 'arr'; si compile() la trasladó (o el id es de la plantilla nueva) espera a que termine y devuelve MOVED. */
+    private FlightInstance existing(AtomicReferenceArray<FlightInstance> arr, int instanceId) {
+        if (instanceId < arr.length()) {
+            FlightInstance fi = arr.get(instanceId);
+            if (fi != MOVED) return fi;
+        }
+        schedule(); // recompilando: se bloquea hasta que compile() publique el arreglo nuevo
+        if (instances == arr) throw new IndexOutOfBoundsException("Instancia inexistente: " + instanceId);
+        return MOVED;
+    }
+
+    // --- Fachada de objetos (se crean a pedido) ---
+    public Node node(String airportCode, int hour) { return node(nodeId(airportIndex(airportCode), hour)); }
+    public Node node(int nodeId) { return new Node(nodeId, airports[airportOf(nodeId)], hourOf(nodeId)); }
+
+    public List<Edge> edges(Node node) {
+        Schedule sc = schedule();
+        int a = airportOf(node.id), h = node.hour;
+        List<Edge> out = new ArrayList<>();
+        if (h < hours - 1 || cyclic) out.add(new Edge(node, node(nodeId(a, (h + 1) % hours)), false, null));
+        int cell = a * DAY + h % DAY;
+        for (int e = sc.offset[cell]; e < sc.offset[cell + 1]; e++) {
+            int f = sc.flight[e], id = sc.base[f] + (h / DAY) * sc.perDay[f] + sc.slot[e];
+            if (!exists(id)) continue;
+            out.add(new Edge(node, node(nodeId(sc.dest[f], (h + sc.duration[f]) % hours)), true, instance(id)));
+        }
+        return out;
+    }
+
+    /** Materializa todos los nodos (costoso en horizontes largos; sólo para inspección). */
+    public Collection<Node[]> nodesByAirport() {
+        List<Node[]> out = new ArrayList<>(airports.length);
+        for (int a = 0; a < airports.length; a++) {
+            Node[] row = new Node[hours];
+            for (int h = 0; h < hours; h++) row[h] = node(nodeId(a, h));
+            out.add(row);
+        }
+        return out;
+    }
+
+    /** Materializa todas las instancias existentes (costoso en horizontes largos; preferir ids). */
+    public List<FlightInstance> allInstances() {
+        int n = instanceCount();
+        List<FlightInstance> out = new ArrayList<>(n);
+        for (int id = 0; id < n; id++) if (exists(id)) out.add(instance(id));
+        return out;
+    }
 }
@@ -0,0 +1,185 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.metrics.PlannerMetrics;
+
+import java.util.Arrays;
+
+/**
+ * Motor de PathFinder sobre el grafo tiempo-expandido (horas del horizonte del TEGraph):
+ * - Estado = nodo denso de TEGraph (airport@hour); las aristas salen de la plantilla diaria
+ *   (TEGraph.Schedule) sin materializar el grafo
+ * - Costo = hora de llegada (minimizar)
+ * - Restricción de conexión mínima: sólo se puede tomar arista de vuelo
+ *   si la hora actual cumple con la salida exacta del vuelo (modelado por arista).
+ * - Check de capacidad: sólo consideramos aristas de vuelo cuya instancia tenga cupo
+ *   (según el CapacityLedger de la decodificación, o la instancia compartida si no hay ledger).
+ * - Check de almacén (sólo con ledger y cupo mínimo > 0): cada nodo lleva la hora en que el
+ *   paquete llegó a ese aeropuerto (waitStart, propagada por las esperas); despegar exige que
+ *   la estadía [waitStart, salida) quepa en el WarehouseTimeline, y un aeropuerto cuenta como
+ *   alcanzado sólo si se llega en vuelo y caben las PICKUP_HOURS de retiro. Entre dos formas de
+ *   llegar al mismo nodo se prefiere la de waitStart mayor (llegada en vuelo a esperar).
+ *
+ * Como toda arista avanza al menos 1h, el costo coincide con la hora del nodo y basta
+ * un barrido hacia adelante por horas (Dijkstra degenerado en cubetas horarias): el primer
+ * nodo destino alcanzado es el de llegada más temprana. En horizonte cíclico las horas son
+ * absolutas (startHour..startHour+hours()-1) y cada nodo se visita a lo sumo una vez.
+ *
+ * sweep(...) calcula el árbol completo desde un origen (llegada más temprana a todos los
+ * aeropuertos), útil para índices y ruteo por lotes.
+ *
+ * route(...) no asigna memoria: usa arreglos de trabajo propios con marcas por época y
+ * deja los tramos (ids de FlightInstance) en legs(). No es thread-safe; cada
+ * hilo/decodificador usa el suyo.
+ */
+public class TimeExpandedPathFinder implements PathFinder {
+
+    private static final int START = -1; // prevEdge: nodo inicial
+    private static final int WAIT = -2;  // prevEdge: espera de 1h (>= 0 = id de FlightInstance)
+
+    // Arreglos de trabajo reutilizables (indexados por id de nodo)
+    private int[] mark = new int[0];     // == epoch si el nodo fue alcanzado en esta búsqueda
+    private int[] prevEdge = new int[0]; // cómo se llegó: START, WAIT o id de instancia
+    private int[] prevNode = new int[0];
+    private int[] waitStart = new int[0]; // hora de llegada al aeropuerto del nodo (almacén)
+    private int epoch;
+    private int[] firstReached = new int[0]; // primer nodo alcanzado por aeropuerto (-1 = no)
+    private int[] legs = new int[16];    // tramos de vuelo de la última ruta (en orden)
+    private int legCount;
+    private int searchStart, searchHours; // para pasar de hora de ciclo a hora absoluta
+    private PlannerMetrics metrics;      // null = sin medición
+
+    @Override
+    public void setMetrics(PlannerMetrics metrics) { this.metrics = metrics; }
+
+    @Override
+    public int route(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int deadlineHour, int units) {
+        legCount = 0;
+        int u = search(g, ledger, origin, startHour, dest, deadlineHour, Math.max(1, units));
+        return u < 0 ? -1 : reconstruct(u);
+    }
+
+    @Override
+    public void sweep(TEGraph g, CapacityLedger ledger, int origin, int startHour, int minUnits) {
+        legCount = 0;
+        search(g, ledger, origin, startHour, -1, Integer.MAX_VALUE, minUnits);
+    }
+
+    @Override
+    public int arrivalAt(int airport) {
+        int u = firstReached[airport];
+        return u < 0 ? -1 : absoluteHour(u);
+    }
+
+    @Override
+    public int legsTo(TEGraph g, int airport) {
+        int u = firstReached[airport];
+        return u < 0 ? -1 : reconstruct(u);
+    }
+
+    /** Barrido por horas; devuelve el primer nodo de dest alcanzado (o -1). dest = -1 recorre todo. */
+    private int search(TEGraph g, CapacityLedger ledger, int origin, int startHour, int dest, int lastHour, int minUnits) {
+        final TEGraph.Schedule sc = g.schedule();
+        final int nAirports = g.airportCount();
+        final int H = sc.hours;
+        final int endHour = (int) Math.min(lastHour, sc.cyclic ? startHour + (long) H - 1 : H - 1);
+        final int ep = nextEpoch(g.nodeCount(), nAirports);
+        final WarehouseTimeline wh = ledger != null && minUnits > 0 ? ledger.warehouse() : null;
+        Arrays.fill(firstReached, -1);
+        searchStart = startHour;
+        searchHours = H;
+
+        int s = origin * H + startHour;
+        mark[s] = ep;
+        prevEdge[s] = START;
+        waitStart[s] = startHour;
+        int expanded = 0;
+
+        for (int h = startHour; h <= endHour; h++) {
+            final int hc = h < H ? h : h - H;   // hora de ciclo (startHour < H)
+            final int day = hc / TEGraph.DAY, hod = hc - day * TEGraph.DAY;
+            for (int a = 0; a < nAirports; a++) {
+                int u = a * H + hc;
+                if (mark[u] != ep) continue;
+                final int ws = waitStart[u];
+                if (firstReached[a] < 0
+                        && (wh == null || (ws == h && wh.fits(a, h, h + WarehouseTimeline.PICKUP_HOURS, minUnits)))) {
+                    firstReached[a] = u;
+                    if (a == dest) return record(expanded, u);
+                }
+                expanded++;
+
+                // Espera 1h: conserva la hora de llegada al aeropuerto
+                if (h < endHour) relax(hc + 1 < H ? u + 1 : a * H, u, WAIT, ws, ep, wh != null);
+
+                final int cell = a * TEGraph.DAY + hod;
+                for (int e = sc.offset[cell]; e < sc.offset[cell + 1]; e++) {
+                    final int f = sc.flight[e];
+                    final int arrival = h + sc.duration[f];
+                    if (arrival > endHour) continue; // llega fuera del barrido (o del horizonte lineal)
+                    final int inst = sc.base[f] + day * sc.perDay[f] + sc.slot[e];
+                    // Si no hay capacidad (o no cabe la estadía previa en almacén), lo ignoramos
+                    int left = ledger != null ? ledger.remaining(inst) : g.sharedRemaining(inst);
+                    if (left < minUnits) continue;
+                    if (wh != null && !wh.fits(a, ws, h, minUnits)) continue;
+                    relax(sc.dest[f] * H + (arrival < H ? arrival : arrival % H), u, inst, arrival, ep, wh != null);
+                }
+            }
+        }
+        return record(expanded, -1);
+    }
+
+    private void relax(int v, int u, int via, int arrivedAt, int ep, boolean preferLater) {
+        if (mark[v] != ep || (preferLater && arrivedAt > waitStart[v])) {
+            mark[v] = ep;
+            prevEdge[v] = via;
+            prevNode[v] = u;
+            waitStart[v] = arrivedAt;
+        }
+    }
+
+    private int record(int expanded, int result) {
+        PlannerMetrics m = metrics;
+        if (m != null) {
+            m.searches.increment();
+            m.nodesExpanded.add(expanded);
+        }
+        return result;
+    }
+
+    @Override public int[] legs() { return legs; }
+    @Override public int legCount() { return legCount; }
+
+    private int absoluteHour(int node) {
+        int hc = node % searchHours;
+        return hc >= searchStart ? hc : hc + searchHours;
+    }
+
+    private int reconstruct(int node) {
+        int n = 0;
+        for (int cur = node; prevEdge[cur] != START; cur = prevNode[cur]) {
+            if (prevEdge[cur] >= 0) n++;
+        }
+        if (n > legs.length) legs = new int[Math.max(n, legs.length * 2)];
+        legCount = n;
+        for (int cur = node; prevEdge[cur] != START; cur = prevNode[cur]) {
+            if (prevEdge[cur] >= 0) legs[--n] = prevEdge[cur];
+        }
+        return absoluteHour(node);
+    }
+
+    private int nextEpoch(int nodeCount, int airportCount) {
+        if (firstReached.length != airportCount) firstReached = new int[airportCount];
+        if (mark.length != nodeCount) {
+            mark = new int[nodeCount];
+            prevEdge = new int[nodeCount];
+            prevNode = new int[nodeCount];
+            waitStart = new int[nodeCount];
+            epoch = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
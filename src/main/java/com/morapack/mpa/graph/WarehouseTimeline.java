@@ -0,0 +1,190 @@
+package com.morapack.mpa.graph;
+
+/**
+ * Ocupación de almacén por aeropuerto y hora del horizonte (0..hours()-1 del TEGraph):
+ * - Un árbol de segmentos por aeropuerto sobre la potencia de 2 >= hours() en arreglos planos
+ * - add(a, from, to, u): suma u paquetes en [from, to); peak(a, from, to): máximo en [from, to)
+ *   Ambas en O(log H), sin recorrer hora por hora (suma diferida por nodo, sin propagar)
+ * - fits(...) compara contra Airport.warehouseCapacity()
+ *
+ * En horizonte cíclico los intervalos que cruzan el fin del ciclo se parten en dos (y uno de
+ * largo >= hours() lo cubre entero); en horizonte lineal se recortan a [0, hours()).
+ *
+ * Cada paquete ocupa almacén en su origen desde la liberación hasta el primer despegue,
+ * en cada escala entre llegada y siguiente salida, y en destino PICKUP_HOURS tras llegar.
+ *
+ * Igual que CapacityLedger: estado por decodificación, reset() en O(aeropuertos tocados),
+ * no es thread-safe.
+ */
+public class WarehouseTimeline {
+    /** Horas que un paquete permanece en el almacén de destino hasta que lo recogen. */
+    public static final int PICKUP_HOURS = 2;
+
+    private final int hours;
+    private final boolean cyclic;
+    private final int leaves;       // potencia de 2 >= hours
+    private final int stride;       // nodos por aeropuerto (raíz = 1)
+    private final int[] capacity;   // por aeropuerto
+    private final int[] baseMax;    // estado inicial (copia de max/pend)
+    private final int[] basePend;
+    private final int[] max;        // máximo del subárbol, incluida la suma diferida propia
+    private final int[] pend;       // suma diferida aplicada a todo el subárbol
+    private final boolean[] dirty;  // por aeropuerto
+    private final int[] touched;
+    private int touchedCount;
+
+    public WarehouseTimeline(TEGraph graph) {
+        this(graph.hours(), graph.isCyclic(), capacities(graph),
+                new int[graph.airportCount() * stride(graph.hours())], new int[graph.airportCount() * stride(graph.hours())]);
+    }
+
+    private WarehouseTimeline(int hours, boolean cyclic, int[] capacity, int[] baseMax, int[] basePend) {
+        this.hours = hours;
+        this.cyclic = cyclic;
+        this.stride = stride(hours);
+        this.leaves = stride / 2;
+        this.capacity = capacity;
+        this.baseMax = baseMax;
+        this.basePend = basePend;
+        this.max = baseMax.clone();
+        this.pend = basePend.clone();
+        this.dirty = new boolean[capacity.length];
+        this.touched = new int[capacity.length];
+    }
+
+    private static int stride(int hours) {
+        return hours <= 1 ? 2 : 4 * Integer.highestOneBit(hours - 1);
+    }
+
+    private static int[] capacities(TEGraph graph) {
+        int[] cap = new int[graph.airportCount()];
+        for (int a = 0; a < cap.length; a++) cap[a] = graph.airport(a).warehouseCapacity();
+        return cap;
+    }
+
+    /**
+     * Línea de tiempo cuya ocupación inicial es 'occupancy' (hora a hora, en el formato de
+     * occupancy(): aeropuerto * hours() + hora), p.ej. leída de un checkpoint.
+     */
+    public static WarehouseTimeline of(TEGraph graph, int[] occupancy) {
+        WarehouseTimeline wh = new WarehouseTimeline(graph);
+        final int H = wh.hours;
+        if (occupancy.length != wh.capacity.length * H) {
+            throw new IllegalArgumentException("Se esperaban " + wh.capacity.length * H + " horas de almacén; hay " + occupancy.length);
+        }
+        for (int a = 0; a < wh.capacity.length; a++) {
+            for (int h = 0, off = a * H; h < H; ) {
+                int u = occupancy[off + h], end = h + 1;
+                while (end < H && occupancy[off + end] == u) end++;
+                if (u != 0) wh.update(a * wh.stride, 1, 0, wh.leaves, h, end, u);
+                h = end;
+            }
+        }
+        return wh.snapshot(); // la ocupación cargada pasa a ser el estado inicial de reset()
+    }
+
+    /** Ocupación hora a hora de todos los aeropuertos (aeropuerto * hours() + hora). */
+    public int[] occupancy() {
+        int[] occ = new int[capacity.length * hours];
+        for (int a = 0; a < capacity.length; a++) {
+            for (int h = 0; h < hours; h++) occ[a * hours + h] = query(a * stride, 1, 0, leaves, h, h + 1);
+        }
+        return occ;
+    }
+
+    /** Nueva línea de tiempo cuya ocupación inicial es la actual de ésta. */
+    public WarehouseTimeline snapshot() {
+        return new WarehouseTimeline(hours, cyclic, capacity, max.clone(), pend.clone());
+    }
+
+    public int capacity(int airport) { return capacity[airport]; }
+
+    /** Ocupación máxima en [from, to) (0 si el intervalo queda vacío tras recortar al horizonte). */
+    public int peak(int airport, int from, int to) {
+        if (cyclic) {
+            if (from >= to) return 0;
+            if (to - from >= hours) return max[airport * stride + 1];
+            int len = to - from;
+            from = Math.floorMod(from, hours);
+            to = from + len;
+            if (to > hours) { // cruza el fin del ciclo
+                return Math.max(query(airport * stride, 1, 0, leaves, from, hours),
+                        query(airport * stride, 1, 0, leaves, 0, to - hours));
+            }
+        } else {
+            from = Math.max(0, from);
+            to = Math.min(hours, to);
+            if (from >= to) return 0;
+        }
+        return query(airport * stride, 1, 0, leaves, from, to);
+    }
+
+    /** ¿Caben 'units' paquetes más durante todo [from, to)? */
+    public boolean fits(int airport, int from, int to, int units) {
+        return peak(airport, from, to) + units <= capacity[airport];
+    }
+
+    /** Suma 'units' (negativo = libera) en [from, to) sin verificar capacidad. */
+    public void add(int airport, int from, int to, int units) {
+        if (cyclic) {
+            if (from >= to || units == 0) return;
+            if (to - from >= hours) {
+                from = 0;
+                to = hours;
+            } else {
+                int len = to - from;
+                from = Math.floorMod(from, hours);
+                to = from + len;
+                if (to > hours) { // cruza el fin del ciclo
+                    touch(airport);
+                    update(airport * stride, 1, 0, leaves, 0, to - hours, units);
+                    to = hours;
+                }
+            }
+        } else {
+            from = Math.max(0, from);
+            to = Math.min(hours, to);
+            if (from >= to || units == 0) return;
+        }
+        touch(airport);
+        update(airport * stride, 1, 0, leaves, from, to, units);
+    }
+
+    private void touch(int airport) {
+        if (!dirty[airport]) {
+            dirty[airport] = true;
+            touched[touchedCount++] = airport;
+        }
+    }
+
+    /** Restaura la ocupación inicial de los aeropuertos tocados. */
+    public void reset() {
+        for (int k = 0; k < touchedCount; k++) {
+            int a = touched[k], off = a * stride;
+            System.arraycopy(baseMax, off, max, off, stride);
+            System.arraycopy(basePend, off, pend, off, stride);
+            dirty[a] = false;
+        }
+        touchedCount = 0;
+    }
+
+    private int query(int off, int node, int lo, int hi, int from, int to) {
+        if (from <= lo && hi <= to) return max[off + node];
+        int mid = (lo + hi) >>> 1, best = Integer.MIN_VALUE;
+        if (from < mid) best = query(off, 2 * node, lo, mid, from, to);
+        if (to > mid) best = Math.max(best, query(off, 2 * node + 1, mid, hi, from, to));
+        return best + pend[off + node];
+    }
+
+    private void update(int off, int node, int lo, int hi, int from, int to, int units) {
+        if (from <= lo && hi <= to) {
+            pend[off + node] += units;
+            max[off + node] += units;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (from < mid) update(off, 2 * node, lo, mid, from, to, units);
+        if (to > mid) update(off, 2 * node + 1, mid, hi, from, to, units);
+        max[off + node] = pend[off + node] + Math.max(max[off + 2 * node], max[off + 2 * node + 1]);
+    }
+}
@@ -0,0 +1,174 @@
+package com.morapack.mpa.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Métricas de bajo costo para corridas de MPAPlanner / Decoder / PathFinder:
+ * - Contadores y acumuladores de tiempo con LongAdder (sin contención entre workers)
+ * - Histograma log2 de latencia por decodificación (µs)
+ * - Exportación a CSV/JSON al final y muestreo periódico opcional
+ *
+ * Los componentes sólo miden si se les asignó una instancia (null = sin costo).
+ */
+public class PlannerMetrics {
+
+    /** Histograma con cubetas potencia de 2: cubeta k cuenta valores en [2^(k-1), 2^k). */
+    public static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        Histogram() {
+            for (int k = 0; k < buckets.length; k++) buckets[k] = new LongAdder();
+        }
+
+        public void record(long value) {
+            long v = Math.max(0L, value);
+            buckets[64 - Long.numberOfLeadingZeros(v)].increment();
+            count.increment();
+            sum.add(v);
+        }
+
+        public long count() { return count.sum(); }
+        public double mean() { long c = count(); return c == 0 ? 0.0 : sum.sum() / (double) c; }
+
+        /** Cota superior aproximada (límite de cubeta) del percentil q en [0, 1]. */
+        public long percentile(double q) {
+            long total = count();
+            if (total == 0) return 0L;
+            long target = (long) Math.ceil(q * total), seen = 0;
+            for (int k = 0; k < buckets.length; k++) {
+                seen += buckets[k].sum();
+                if (seen >= Math.max(1, target)) return k == 0 ? 0L : (1L << k) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /** Nombres de los operadores del modo adaptativo, en el orden de improvementsByOperator. */
+    public static final String[] OPERATORS = { "brownian", "levy", "elite", "fads" };
+
+    // MPAPlanner
+    public final LongAdder iterations = new LongAdder();
+    public final LongAdder decodes = new LongAdder();
+    public final LongAdder[] improvementsByPhase = { new LongAdder(), new LongAdder(), new LongAdder() };
+    public final LongAdder[] eliteImprovementsByPhase = { new LongAdder(), new LongAdder(), new LongAdder() };
+    // modo adaptativo: por operador (BROWNIAN, LEVY, ELITE, FADS; ver OPERATORS)
+    public final LongAdder[] improvementsByOperator = { new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder() };
+    public final LongAdder[] eliteImprovementsByOperator = { new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder() };
+    public final LongAdder migrations = new LongAdder();
+    public final LongAdder checkpoints = new LongAdder();    // checkpoints escritos a disco
+    public final LongAdder restarts = new LongAdder();       // reinicios parciales (modo adaptativo)
+    public final LongAdder restartEliteImprovements = new LongAdder(); // reinicios cuyo re-sembrado superó al elite
+
+    // Decoder
+    public final LongAdder ordersRouted = new LongAdder();
+    public final LongAdder cacheHits = new LongAdder();      // decodificaciones servidas por DecodeCache
+    public final LongAdder cacheMisses = new LongAdder();
+    public final LongAdder prefixReused = new LongAdder();   // órdenes tomadas del prefijo del padre
+    public final LongAdder unreachable = new LongAdder();    // rechazos O(1) por índice
+    public final LongAdder cachedPaths = new LongAdder();    // rutas del índice reservadas sin búsqueda
+    public final LongAdder backlogged = new LongAdder();
+    public final LongAdder splitOrders = new LongAdder();    // órdenes entregadas en varias rutas
+    public final LongAdder batchSweeps = new LongAdder();    // barridos por origen (modo por lotes)
+    public final LongAdder batchHits = new LongAdder();      // órdenes resueltas con un árbol compartido
+    public final LongAdder sortNanos = new LongAdder();
+    public final LongAdder routeNanos = new LongAdder();
+    public final LongAdder reserveNanos = new LongAdder();
+    public final Histogram decodeMicros = new Histogram();
+
+    // PathFinder
+    public final LongAdder searches = new LongAdder();
+    public final LongAdder nodesExpanded = new LongAdder();
+    public final LongAdder scanFallbacks = new LongAdder();  // búsquedas del barrido de conexiones repetidas en tiempo-expandido
+
+    private final long startNanos = System.nanoTime();
+
+    /** Decodificaciones por segundo desde la creación de estas métricas. */
+    public double decodesPerSecond() {
+        double secs = (System.nanoTime() - startNanos) / 1e9;
+        return secs <= 0 ? 0.0 : decodes.sum() / secs;
+    }
+
+    /** Foto de todos los valores (orden estable) para exportar. */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> m = new LinkedHashMap<>();
+        m.put("elapsed_ms", (System.nanoTime() - startNanos) / 1_000_000L);
+        m.put("iterations", iterations.sum());
+        m.put("decodes", decodes.sum());
+        m.put("decodes_per_sec", decodesPerSecond());
+        for (int f = 0; f < 3; f++) {
+            m.put("improvements_f" + (f + 1), improvementsByPhase[f].sum());
+            m.put("elite_improvements_f" + (f + 1), eliteImprovementsByPhase[f].sum());
+        }
+        for (int op = 0; op < OPERATORS.length; op++) {
+            m.put("improvements_" + OPERATORS[op], improvementsByOperator[op].sum());
+            m.put("elite_improvements_" + OPERATORS[op], eliteImprovementsByOperator[op].sum());
+        }
+        m.put("migrations", migrations.sum());
+        m.put("checkpoints", checkpoints.sum());
+        m.put("restarts", restarts.sum());
+        m.put("elite_improvements_restart", restartEliteImprovements.sum());
+        m.put("orders_routed", ordersRouted.sum());
+        m.put("cache_hits", cacheHits.sum());
+        m.put("cache_misses", cacheMisses.sum());
+        m.put("prefix_reused", prefixReused.sum());
+        m.put("unreachable", unreachable.sum());
+        m.put("cached_paths", cachedPaths.sum());
+        m.put("backlogged", backlogged.sum());
+        m.put("split_orders", splitOrders.sum());
+        m.put("batch_sweeps", batchSweeps.sum());
+        m.put("batch_hits", batchHits.sum());
+        m.put("sort_ms", sortNanos.sum() / 1_000_000L);
+        m.put("route_ms", routeNanos.sum() / 1_000_000L);
+        m.put("reserve_ms", reserveNanos.sum() / 1_000_000L);
+        m.put("decode_us_mean", decodeMicros.mean());
+        m.put("decode_us_p50", decodeMicros.percentile(0.50));
+        m.put("decode_us_p99", decodeMicros.percentile(0.99));
+        m.put("searches", searches.sum());
+        m.put("nodes_expanded", nodesExpanded.sum());
+        m.put("scan_fallbacks", scanFallbacks.sum());
+        return m;
+    }
+
+    /** CSV de dos columnas: metric,value. */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("metric,value\n");
+        for (Map.Entry<String, Number> e: snapshot().entrySet()) sb.append(e.getKey()).append(',').append(format(e.getValue())).append('\n');
+        return sb.toString();
+    }
+
+    /** Objeto JSON plano en una línea. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, Number> e: snapshot().entrySet()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(e.getKey()).append("\":").append(format(e.getValue()));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Publica toJson() cada 'periodMs' en un hilo daemon hasta cerrar el AutoCloseable devuelto.
+     */
+    public AutoCloseable startSampling(long periodMs, Consumer<String> sink) {
+        ScheduledExecutorService ses = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mpa-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        ses.scheduleAtFixedRate(() -> sink.accept(toJson()), periodMs, periodMs, TimeUnit.MILLISECONDS);
+        return ses::shutdownNow;
+    }
+
+    private static String format(Number n) {
+        return n instanceof Double ? String.format(Locale.ROOT, "%.2f", n.doubleValue()) : n.toString();
+    }
+}
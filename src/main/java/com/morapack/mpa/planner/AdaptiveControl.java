@@ -0,0 +1,156 @@
+package com.morapack.mpa.planner;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Control adaptativo del MPA (MPAPlanner.withAdaptive):
+ * - Operadores: BROWNIAN (exploración), LEVY (transición), ELITE (Lévy alrededor del elite)
+ *   y FADS (efecto de los dispositivos agregadores de peces del MPA estándar)
+ * - Selección por probabilidad proporcional a la tasa de éxito reciente de cada operador
+ *   (media móvil, con un piso P_MIN): las "fases" dejan de ser tercios de tiempo y pasan a
+ *   ser el operador que más mejora en cada momento
+ * - Paso por operador con la regla de 1/5: se agranda si más de 1/5 de sus candidatos
+ *   mejoró a su depredador en la generación, si no se achica (entre base/16 y base*4)
+ * - Memoria marina: además de la memoria por depredador (X[p] sólo se reemplaza si mejora),
+ *   un archivo de los mejores elites vistos, usado para re-sembrar en los reinicios
+ * - Reinicio: sin mejora del elite por max(MIN_PATIENCE, 3 x brecha media entre mejoras)
+ *   generaciones; un reinicio es infructuoso si el elite no mejoró desde el anterior (o desde
+ *   el inicio, para el primero) y tras FRUITLESS_RESTARTS seguidos se considera convergido:
+ *   el planner consulta converged() después de restarted() y antes de re-sembrar
+ *
+ * Estado de una corrida; se actualiza sólo en el hilo de solveWeekly (pick(...) es de sólo
+ * lectura y puede llamarse desde los workers durante la evaluación).
+ */
+final class AdaptiveControl {
+    static final int BROWNIAN = 0, LEVY = 1, ELITE = 2, FADS = 3, OPS = 4;
+
+    /** Probabilidad del efecto FADs (y de cada coordenada perturbada), como en el MPA estándar. */
+    static final double FADS_RATE = 0.2;
+
+    private static final double P_MIN = 0.05;      // probabilidad mínima por operador
+    private static final double RATE_ALPHA = 0.3;  // peso de la última generación en la tasa de éxito
+    private static final double TARGET_SUCCESS = 0.2;
+    private static final double EXPAND = 1.22, SHRINK = 0.82;
+    private static final int MIN_PATIENCE = 8;     // generaciones sin mejora antes de reiniciar
+    private static final int FRUITLESS_RESTARTS = 2;
+
+    private final double[] base;
+    private final double[] step = new double[OPS];
+    private final double[] rate = new double[OPS];
+    private final double[] prob = new double[OPS];
+    private final int[] uses = new int[OPS];
+    private final int[] wins = new int[OPS];
+
+    private int sinceImprove;      // generaciones desde la última mejora del elite
+    private double meanGap = MIN_PATIENCE / 3.0;
+    private int fruitless;         // reinicios seguidos sin mejora del elite
+    private boolean improvedSinceRestart; // desde el último reinicio (o desde el inicio)
+
+    // Memoria marina: mejores elites (vectores distintos), ordenados por llegada
+    private final double[][] memory;
+    private final double[] memoryFit;
+    private int memorySize;
+
+    AdaptiveControl(double browSigma, double levyScale, double eliteScale, int population) {
+        this.base = new double[] { browSigma, levyScale, eliteScale, 1.0 };
+        this.memory = new double[Math.max(2, population / 4)][];
+        this.memoryFit = new double[memory.length];
+        resetOperators();
+    }
+
+    private void resetOperators() {
+        System.arraycopy(base, 0, step, 0, OPS);
+        for (int op = 0; op < OPS; op++) rate[op] = 1.0 / OPS;
+        updateProbabilities();
+    }
+
+    private void updateProbabilities() {
+        double sum = 0.0;
+        for (double r: rate) sum += r;
+        for (int op = 0; op < OPS; op++) {
+            prob[op] = P_MIN + (1.0 - OPS * P_MIN) * (sum > 0 ? rate[op] / sum : 1.0 / OPS);
+        }
+    }
+
+    /** Operador para un depredador (ruleta sobre las probabilidades vigentes). */
+    int pick(RandomGenerator r) {
+        double u = r.nextDouble();
+        for (int op = 0; op < OPS - 1; op++) {
+            if ((u -= prob[op]) < 0) return op;
+        }
+        return OPS - 1;
+    }
+
+    double step(int op) { return step[op]; }
+
+    /** Resultado del candidato generado con 'op' (mejoró o no a su depredador). */
+    void record(int op, boolean improved) {
+        uses[op]++;
+        if (improved) wins[op]++;
+    }
+
+    /** Cierra la generación: actualiza tasas, pasos y el contador de estancamiento. */
+    void endGeneration(boolean eliteImproved) {
+        for (int op = 0; op < OPS; op++) {
+            if (uses[op] == 0) continue;
+            double success = wins[op] / (double) uses[op];
+            rate[op] = (1.0 - RATE_ALPHA) * rate[op] + RATE_ALPHA * success;
+            if (op != FADS) {
+                step[op] *= success > TARGET_SUCCESS ? EXPAND : SHRINK;
+                step[op] = Math.max(base[op] / 16.0, Math.min(base[op] * 4.0, step[op]));
+            }
+            uses[op] = 0;
+            wins[op] = 0;
+        }
+        updateProbabilities();
+
+        if (eliteImproved) {
+            meanGap = 0.7 * meanGap + 0.3 * (sinceImprove + 1);
+            sinceImprove = 0;
+            fruitless = 0;
+            improvedSinceRestart = true;
+        } else {
+            sinceImprove++;
+        }
+    }
+
+    /** ¿Estancado lo suficiente como para reiniciar parte de la población? */
+    boolean shouldRestart() {
+        return sinceImprove > Math.max(MIN_PATIENCE, 3.0 * meanGap);
+    }
+
+    /** Registra un reinicio (antes de re-sembrar): cuenta si fue infructuoso y vuelve los operadores a su estado inicial. */
+    void restarted() {
+        if (!improvedSinceRestart) fruitless++;
+        improvedSinceRestart = false;
+        sinceImprove = 0;
+        resetOperators();
+    }
+
+    /** El re-sembrado de un reinicio superó al elite: el reinicio fue fructífero. */
+    void eliteImproved() {
+        fruitless = 0;
+        improvedSinceRestart = true;
+    }
+
+    /** Convergido: varios reinicios seguidos no mejoraron al elite. */
+    boolean converged() { return fruitless >= FRUITLESS_RESTARTS; }
+
+    /** Guarda un elite en la memoria marina (reemplaza al peor si está llena). */
+    void remember(double[] x, double fitness) {
+        if (memorySize < memory.length) {
+            memory[memorySize] = x.clone();
+            memoryFit[memorySize++] = fitness;
+            return;
+        }
+        int worst = 0;
+        for (int k = 1; k < memorySize; k++) if (memoryFit[k] < memoryFit[worst]) worst = k;
+        if (fitness > memoryFit[worst]) {
+            memory[worst] = x.clone();
+            memoryFit[worst] = fitness;
+        }
+    }
+
+    int memorySize() { return memorySize; }
+    double[] memory(int k) { return memory[k]; }
+}
@@ -0,0 +1,379 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.PathFinder;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foto binaria del estado de un MPAPlanner para reanudar una corrida (otro proceso u otra máquina):
+ * - Población X como doubles crudos (población x órdenes) y fitness por depredador
+ * - Rutas del elite (tramos por orden entregada, partes si se dividió)
+ * - Cupo restante por instancia de vuelo y ocupación de almacén por aeropuerto y hora tras
+ *   reservar el elite (ints, ambos incluyen el baseline)
+ *
+ * Formato (big-endian, vía FileChannel): MAGIC, VERSION, huella de las órdenes, n, población,
+ * iteración, ms acumulados, índice del elite, fitness[], X[], elite, cupos, almacén. write(...)
+ * escribe a un temporal y lo renombra, así un corte a mitad de escritura no pisa el checkpoint
+ * anterior. read(...) valida conteos e índices: un archivo truncado o corrupto da IOException.
+ *
+ * El estado del generador aleatorio no se guarda: la corrida reanudada continúa la búsqueda
+ * desde la misma población, pero no es idéntica bit a bit a la que no se interrumpió.
+ */
+public final class Checkpoint {
+    private static final int MAGIC = 0x4D50434B; // "MPCK"
+    private static final int VERSION = 2;
+    private static final int CHUNK = 1 << 16;    // bytes por escritura/lectura del canal
+
+    public final long ordersFingerprint;
+    public final int iteration;
+    public final long elapsedMs;     // acumulado entre todas las corridas reanudadas
+    public final int eliteIndex;
+    public final double[] fitness;   // por depredador
+    public final double[][] X;       // [depredador][orden]
+    // Elite
+    public final double eliteFitness, elitePenalty, elitePercentDelivered;
+    final int[] eliteOrders;         // índice de orden por entrega
+    final int[] eliteArrivals;
+    final int[][][] eliteLegs;       // [entrega][parte] -> tramos
+    final int[][] eliteUnits;        // [entrega][parte] (null = una sola ruta con todas las unidades)
+    final int[][] eliteSplitArrivals;
+    public final int[] remaining;    // cupo por instancia tras reservar el elite
+    public final int[] warehouse;    // ocupación por aeropuerto * horas + hora tras reservar el elite
+
+    private Checkpoint(long ordersFingerprint, int iteration, long elapsedMs, int eliteIndex, double[] fitness, double[][] X,
+                       double eliteFitness, double elitePenalty, double elitePercentDelivered,
+                       int[] eliteOrders, int[] eliteArrivals, int[][][] eliteLegs, int[][] eliteUnits,
+                       int[][] eliteSplitArrivals, int[] remaining, int[] warehouse) {
+        this.ordersFingerprint = ordersFingerprint;
+        this.iteration = iteration;
+        this.elapsedMs = elapsedMs;
+        this.eliteIndex = eliteIndex;
+        this.fitness = fitness;
+        this.X = X;
+        this.eliteFitness = eliteFitness;
+        this.elitePenalty = elitePenalty;
+        this.elitePercentDelivered = elitePercentDelivered;
+        this.eliteOrders = eliteOrders;
+        this.eliteArrivals = eliteArrivals;
+        this.eliteLegs = eliteLegs;
+        this.eliteUnits = eliteUnits;
+        this.eliteSplitArrivals = eliteSplitArrivals;
+        this.remaining = remaining;
+        this.warehouse = warehouse;
+    }
+
+    public int population() { return X.length; }
+    public int orderCount() { return X.length == 0 ? 0 : X[0].length; }
+
+    /** Huella de la lista de órdenes (id, aeropuertos, horas y tamaño, en orden). */
+    public static long fingerprint(List<PackageOrder> orders) {
+        long h = 0x9E3779B97F4A7C15L ^ orders.size();
+        for (PackageOrder o: orders) {
+            h = mix(h, o.id().hashCode());
+            h = mix(h, o.origin().code().hashCode());
+            h = mix(h, o.destination().code().hashCode());
+            h = mix(h, o.releaseHour());
+            h = mix(h, o.deadlineHour());
+            h = mix(h, o.sizeUnits());
+        }
+        return h;
+    }
+
+    private static long mix(long h, int v) {
+        h = (h ^ v) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
+
+    /** true si el checkpoint se tomó sobre esta misma lista de órdenes. */
+    public boolean matches(List<PackageOrder> orders) {
+        return orders.size() == orderCount() && fingerprint(orders) == ordersFingerprint;
+    }
+
+    /** Toma la foto del estado (copia X; las rutas del elite se reservan sobre 'baseline' para los cupos). */
+    static Checkpoint capture(TEGraph graph, CapacityLedger baseline, OrderTable table, double[][] X, Solution[] fit,
+                              int eliteIdx, int iteration, long elapsedMs) {
+        final Solution elite = fit[eliteIdx];
+        final List<PackageOrder> orders = table.orders();
+        Map<PackageOrder, Integer> index = new IdentityHashMap<>(orders.size() * 2);
+        for (int i = 0; i < orders.size(); i++) index.put(orders.get(i), i);
+
+        final int d = elite.deliveries.size();
+        int[] eo = new int[d], ea = new int[d];
+        int[][][] legs = new int[d][][];
+        int[][] units = new int[d][], splitArr = new int[d][];
+        CapacityLedger ledger = baseline != null ? baseline.snapshot() : new CapacityLedger(graph);
+        for (int k = 0; k < d; k++) {
+            Solution.Delivery dv = elite.deliveries.get(k);
+            int j = index.get(dv.order);
+            eo[k] = j;
+            ea[k] = dv.arrivalHour;
+            if (dv.isSplit()) {
+                legs[k] = new int[dv.splits.length][];
+                units[k] = new int[dv.splits.length];
+                splitArr[k] = new int[dv.splits.length];
+                for (int s = 0; s < dv.splits.length; s++) {
+                    Solution.Split sp = dv.splits[s];
+                    legs[k][s] = sp.legs;
+                    units[k][s] = sp.units;
+                    splitArr[k][s] = sp.arrivalHour;
+                    PathFinder.bookRoute(graph, ledger, table.origin[j], table.release[j], sp.legs, sp.legs.length, sp.units);
+                }
+            } else {
+                legs[k] = new int[][] { dv.legs };
+                PathFinder.bookRoute(graph, ledger, table.origin[j], table.release[j], dv.legs, dv.legs.length, table.size[j]);
+            }
+        }
+        int[] remaining = new int[ledger.size()];
+        for (int id = 0; id < remaining.length; id++) remaining[id] = ledger.remaining(id);
+        int[] warehouse = ledger.warehouse().occupancy();
+
+        double[] fitness = new double[fit.length];
+        double[][] x = new double[X.length][];
+        for (int p = 0; p < fit.length; p++) {
+            fitness[p] = fit[p].fitness;
+            x[p] = X[p].clone();
+        }
+        return new Checkpoint(fingerprint(orders), iteration, elapsedMs, eliteIdx, fitness, x,
+                elite.fitness, elite.penalty, elite.percentDelivered, eo, ea, legs, units, splitArr, remaining, warehouse);
+    }
+
+    /** Reconstruye la Solution elite sobre 'orders' (sin traza: el primer hijo se decodifica completo). */
+    public Solution elite(List<PackageOrder> orders) {
+        if (!matches(orders)) throw new IllegalArgumentException("El checkpoint no corresponde a estas órdenes");
+        Solution s = new Solution();
+        boolean[] delivered = new boolean[orders.size()];
+        for (int k = 0; k < eliteOrders.length; k++) {
+            PackageOrder o = orders.get(eliteOrders[k]);
+            delivered[eliteOrders[k]] = true;
+            if (eliteUnits[k] == null) {
+                s.deliveries.add(new Solution.Delivery(o, eliteArrivals[k], eliteLegs[k][0]));
+            } else {
+                Solution.Split[] parts = new Solution.Split[eliteUnits[k].length];
+                for (int p = 0; p < parts.length; p++) {
+                    parts[p] = new Solution.Split(eliteLegs[k][p], eliteUnits[k][p], eliteSplitArrivals[k][p]);
+                }
+                s.deliveries.add(new Solution.Delivery(o, eliteArrivals[k], parts));
+            }
+        }
+        for (int i = 0; i < delivered.length; i++) if (!delivered[i]) s.backlog.add(orders.get(i));
+        s.fitness = eliteFitness;
+        s.penalty = elitePenalty;
+        s.percentDelivered = elitePercentDelivered;
+        return s;
+    }
+
+    /**
+     * Ledger con las rutas del elite reservadas (p.ej. baseline de un servicio que reinicia): cupos
+     * de vuelo y ocupación de almacén tal como se guardaron, ambos incluido el baseline original.
+     */
+    public CapacityLedger ledger(TEGraph graph, List<PackageOrder> orders) {
+        if (!matches(orders)) throw new IllegalArgumentException("El checkpoint no corresponde a estas órdenes");
+        return CapacityLedger.of(graph, remaining, warehouse);
+    }
+
+    // --- Formato binario ---
+
+    /** Escribe el checkpoint en 'file' (vía temporal + renombrado atómico). */
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(ordersFingerprint);
+            out.putInt(orderCount());
+            out.putInt(population());
+            out.putInt(iteration);
+            out.putLong(elapsedMs);
+            out.putInt(eliteIndex);
+            out.putDoubles(fitness);
+            for (double[] row: X) out.putDoubles(row);
+
+            out.putDouble(eliteFitness);
+            out.putDouble(elitePenalty);
+            out.putDouble(elitePercentDelivered);
+            out.putInt(eliteOrders.length);
+            for (int k = 0; k < eliteOrders.length; k++) {
+                out.putInt(eliteOrders[k]);
+                out.putInt(eliteArrivals[k]);
+                int parts = eliteUnits[k] == null ? 0 : eliteUnits[k].length;
+                out.putInt(parts);
+                for (int p = 0; p < Math.max(1, parts); p++) {
+                    if (parts > 0) {
+                        out.putInt(eliteUnits[k][p]);
+                        out.putInt(eliteSplitArrivals[k][p]);
+                    }
+                    out.putInt(eliteLegs[k][p].length);
+                    out.putInts(eliteLegs[k][p]);
+                }
+            }
+            out.putInt(remaining.length);
+            out.putInts(remaining);
+            out.putInt(warehouse.length);
+            out.putInts(warehouse);
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Lee un checkpoint escrito con write(...). */
+    public static Checkpoint read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            In in = new In(ch, file);
+            if (in.getInt() != MAGIC) throw new IOException(file + ": no es un checkpoint de MPAPlanner");
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException(file + ": versión de checkpoint no soportada: " + version);
+            long fingerprint = in.getLong();
+            int n = in.getInt(), population = in.getInt(), iteration = in.getInt();
+            long elapsed = in.getLong();
+            int eliteIdx = in.getInt();
+            if (n < 0 || population < 1 || (long) n * population * Double.BYTES > ch.size()) throw in.corrupt("tamaño de población");
+            if (eliteIdx < 0 || eliteIdx >= population) throw in.corrupt("índice del elite " + eliteIdx);
+            double[] fitness = in.getDoubles(population);
+            double[][] X = new double[population][];
+            for (int p = 0; p < population; p++) X[p] = in.getDoubles(n);
+
+            double eFit = in.getDouble(), ePen = in.getDouble(), ePct = in.getDouble();
+            int d = in.getInt();
+            if (d < 0 || d > n) throw in.corrupt("entregas del elite " + d);
+            int[] eo = new int[d], ea = new int[d];
+            int[][][] legs = new int[d][][];
+            int[][] units = new int[d][], splitArr = new int[d][];
+            for (int k = 0; k < d; k++) {
+                eo[k] = in.getInt();
+                ea[k] = in.getInt();
+                int parts = in.getInt();
+                if (eo[k] < 0 || eo[k] >= n) throw in.corrupt("orden " + eo[k]);
+                if (parts < 0 || (long) parts * Integer.BYTES > ch.size()) throw in.corrupt("partes " + parts);
+                legs[k] = new int[Math.max(1, parts)][];
+                if (parts > 0) {
+                    units[k] = new int[parts];
+                    splitArr[k] = new int[parts];
+                }
+                for (int p = 0; p < legs[k].length; p++) {
+                    if (parts > 0) {
+                        units[k][p] = in.getInt();
+                        splitArr[k][p] = in.getInt();
+                    }
+                    legs[k][p] = in.getInts(in.getInt());
+                }
+            }
+            int[] remaining = in.getInts(in.getInt());
+            for (int[][] route: legs) {
+                for (int[] part: route) {
+                    for (int leg: part) if (leg < 0 || leg >= remaining.length) throw in.corrupt("tramo " + leg);
+                }
+            }
+            int[] warehouse = in.getInts(in.getInt());
+            return new Checkpoint(fingerprint, iteration, elapsed, eliteIdx, fitness, X,
+                    eFit, ePen, ePct, eo, ea, legs, units, splitArr, remaining, warehouse);
+        }
+    }
+
+    /** Escritura en bloques de CHUNK bytes sobre el canal. */
+    private static final class Out {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK);
+        Out(FileChannel ch) { this.ch = ch; }
+
+        void ensure(int bytes) throws IOException { if (buf.remaining() < bytes) flush(); }
+        void putInt(int v) throws IOException { ensure(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { ensure(8); buf.putLong(v); }
+        void putDouble(double v) throws IOException { ensure(8); buf.putDouble(v); }
+
+        void putDoubles(double[] v) throws IOException {
+            for (int off = 0; off < v.length; ) {
+                if (buf.remaining() < 8) flush();
+                int len = Math.min(v.length - off, buf.remaining() / 8);
+                buf.asDoubleBuffer().put(v, off, len);
+                buf.position(buf.position() + len * 8);
+                off += len;
+            }
+        }
+
+        void putInts(int[] v) throws IOException {
+            for (int off = 0; off < v.length; ) {
+                if (buf.remaining() < 4) flush();
+                int len = Math.min(v.length - off, buf.remaining() / 4);
+                buf.asIntBuffer().put(v, off, len);
+                buf.position(buf.position() + len * 4);
+                off += len;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    /** Lectura en bloques de CHUNK bytes desde el canal. */
+    private static final class In {
+        private final FileChannel ch;
+        private final Path file;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK);
+        In(FileChannel ch, Path file) {
+            this.ch = ch;
+            this.file = file;
+            buf.flip(); // vacío
+        }
+
+        IOException corrupt(String what) {
+            return new IOException(file + ": checkpoint corrupto (" + what + ")");
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) return;
+            buf.compact();
+            while (buf.position() < bytes) {
+                if (ch.read(buf) < 0) throw new EOFException(file + ": checkpoint truncado");
+            }
+            buf.flip();
+        }
+        int getInt() throws IOException { ensure(4); return buf.getInt(); }
+        long getLong() throws IOException { ensure(8); return buf.getLong(); }
+        double getDouble() throws IOException { ensure(8); return buf.getDouble(); }
+
+        double[] getDoubles(int n) throws IOException {
+            if (n < 0 || (long) n * Double.BYTES > ch.size()) throw corrupt("largo " + n);
+            double[] v = new double[n];
+            for (int off = 0; off < n; ) {
+                ensure(8);
+                int len = Math.min(n - off, buf.remaining() / 8);
+                buf.asDoubleBuffer().get(v, off, len);
+                buf.position(buf.position() + len * 8);
+                off += len;
+            }
+            return v;
+        }
+
+        int[] getInts(int n) throws IOException {
+            if (n < 0 || (long) n * Integer.BYTES > ch.size()) throw corrupt("largo " + n);
+            int[] v = new int[n];
+            for (int off = 0; off < n; ) {
+                ensure(4);
+                int len = Math.min(n - off, buf.remaining() / 4);
+                buf.asIntBuffer().get(v, off, len);
+                buf.position(buf.position() + len * 4);
+                off += len;
+            }
+            return v;
+        }
+    }
+}
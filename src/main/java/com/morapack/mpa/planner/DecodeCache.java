@@ -0,0 +1,74 @@
+package com.morapack.mpa.planner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memo de decodificaciones por permutación de ruteo: tras clamp01 muchos candidatos
+ * (sobre todo en la fase Lévy cerca del elite) producen el mismo orden de órdenes y,
+ * por ende, la misma Solution. La clave es un hash de 64 bits de la permutación, verificado
+ * contra la permutación completa (la de la traza de la Solution cacheada, sin copia extra).
+ *
+ * LRU acotado por cantidad de entradas (cada una retiene su Solution y su traza, O(órdenes)).
+ * Válido para una sola tabla de órdenes y configuración de decodificador: MPAPlanner crea uno
+ * por resolución y lo comparte entre sus decodificadores (métodos synchronized).
+ */
+public final class DecodeCache {
+
+    private static final class Key {
+        final long hash;
+        final int[] perm;
+        Key(long hash, int[] perm) { this.hash = hash; this.perm = perm; }
+        @Override public int hashCode() { return (int) (hash ^ (hash >>> 32)); }
+        @Override public boolean equals(Object o) {
+            return o instanceof Key k && k.hash == hash && Arrays.equals(k.perm, perm);
+        }
+    }
+
+    private final LinkedHashMap<Key, Solution> map;
+    public final LongAdder hits = new LongAdder();
+    public final LongAdder misses = new LongAdder();
+
+    public DecodeCache(int capacity) {
+        final int cap = Math.max(1, capacity);
+        this.map = new LinkedHashMap<>(Math.min(cap, 1 << 16) * 4 / 3 + 1, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, Solution> eldest) {
+                return size() > cap;
+            }
+        };
+    }
+
+    /** Hash de 64 bits de la permutación (mezcla tipo SplitMix por posición). */
+    static long hash(int[] perm) {
+        long h = 0x9E3779B97F4A7C15L ^ perm.length;
+        for (int v: perm) {
+            h = (h ^ v) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+
+    /** Solution cacheada para 'perm' (null si no está). */
+    Solution get(long hash, int[] perm) {
+        Solution s;
+        synchronized (map) { s = map.get(new Key(hash, perm)); }
+        if (s != null) hits.increment(); else misses.increment();
+        return s;
+    }
+
+    void put(long hash, int[] perm, Solution sol) {
+        synchronized (map) { map.put(new Key(hash, perm), sol); }
+    }
+
+    public int size() {
+        synchronized (map) { return map.size(); }
+    }
+
+    /** Fracción de consultas resueltas desde el cache. */
+    public double hitRate() {
+        long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+}
@@ -1,55 +1,291 @@
 package com.morapack.mpa.planner;
 
 import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
 import com.morapack.mpa.graph.PathFinder;
+import com.morapack.mpa.graph.ReachabilityIndex;
 import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.graph.TimeExpandedPathFinder;
+import com.morapack.mpa.metrics.PlannerMetrics;
 
 import java.util.*;
 
 /**
  * Decodifica un vector continuo de prioridades -> orden de ruteo de paquetes.
- * Rutea secuencialmente cada paquete con Dijkstra respetando capacidad/tiempo.
+ * Rutea secuencialmente cada paquete (llegada más temprana) respetando capacidad de vuelos, almacén y tiempo.
  * Si no hay ruta antes del deadline, la orden pasa a backlog.
+ * El ReachabilityIndex del grafo evita la búsqueda en los casos fáciles (inalcanzable,
+ * o ruta óptima sin capacidad todavía con cupo).
+ * En modo por lotes (setBatchedRouting) el resto comparte un sweep por origen (ver OriginBatch)
+ * en lugar de una búsqueda por orden; las rutas pueden diferir sólo entre empates de llegada.
+ *
+ * Las reservas se hacen en un CapacityLedger propio que se reinicia al inicio de
+ * cada decode: la evaluación es función pura de (prioridades, órdenes) y no consume
+ * cupo del grafo compartido. Una instancia de Decoder no es thread-safe.
+ *
+ * Cada Solution guarda su traza (permutación + resultado por posición) para permitir
+ * decodificaciones incrementales de candidatos cercanos.
  */
 public class Decoder {
     private final TEGraph graph;
-    private final PathFinder dijkstra = new PathFinder();
+    private PathFinder finder = new TimeExpandedPathFinder();
+    private final CapacityLedger baseline; // cupos ya comprometidos (null = grafo completo)
+    private CapacityLedger ledger;
+    private OrderTable table;            // última tabla construida desde una List (ver decode)
+    private int[] sortScratch = new int[0];
+    private PlannerMetrics metrics;      // null = sin medición
+    private Objective objective = Objective.DELIVERED_ONLY;
+    private OriginBatch batch;           // null = una búsqueda por orden
+    private int maxSplits = 1;           // partes máximas por orden (1 = sin dividir)
+    private DecodeCache cache;           // null = sin memo
 
-    public Decoder(TEGraph graph) { this.graph = graph; }
+    public Decoder(TEGraph graph) { this(graph, null); }
+
+    /** Decoder que parte de las reservas comprometidas en 'baseline' (no se modifica). */
+    public Decoder(TEGraph graph, CapacityLedger baseline) {
+        this.graph = graph;
+        this.baseline = baseline;
+    }
+
+    /** Mide tiempos de ordenamiento/ruteo/reserva y contadores en 'metrics' (null para desactivar). */
+    public void setMetrics(PlannerMetrics metrics) {
+        this.metrics = metrics;
+        finder.setMetrics(metrics);
+    }
+
+    /** Motor de búsqueda de rutas (por defecto TimeExpandedPathFinder); propio de este decoder. */
+    public void setPathFinder(PathFinder finder) {
+        this.finder = finder;
+        finder.setMetrics(metrics);
+        if (batch != null) batch = new OriginBatch(graph, finder);
+    }
+
+    /** Activa el ruteo por lotes: un sweep por (origen, liberación) compartido entre órdenes. */
+    public void setBatchedRouting(boolean batched) {
+        this.batch = batched ? new OriginBatch(graph, finder) : null;
+    }
+
+    /**
+     * Permite dividir una orden de varias unidades en hasta 'maxParts' rutas cuando ninguna
+     * ruta tiene lugar para todas (1 = no dividir; la orden pasa a backlog).
+     */
+    public void setSplitShipments(int maxParts) { this.maxSplits = Math.max(1, maxParts); }
+
+    /**
+     * Memo de decodificaciones por permutación (puede compartirse entre decodificadores con la
+     * misma configuración y tabla de órdenes). Las Solution devueltas desde el memo son compartidas:
+     * no deben modificarse.
+     */
+    public void setCache(DecodeCache cache) { this.cache = cache; }
+
+    /** Cupos y almacén tras la última decodificación (baseline + reservas de sus entregas). */
+    CapacityLedger ledger() { return ledger; }
+
+    /** Términos adicionales de fitness (ver Objective); por defecto sólo entregas. */
+    public void setObjective(Objective objective) { this.objective = objective; }
 
     public Solution decode(double[] priorities, List<PackageOrder> orders) {
-        // 1) Ordenar órdenes por prioridad (mayor primero)
-        Integer[] idx = new Integer[orders.size()];
-        for (int i = 0; i < orders.size(); i++) idx[i] = i;
-        Arrays.sort(idx, Comparator.comparingDouble((Integer i) -> priorities[i]).reversed());
+        return decode(priorities, orders, null);
+    }
+
+    public Solution decode(double[] priorities, List<PackageOrder> orders, Solution parent) {
+        // Tabla cacheada por identidad de la lista (MPAPlanner la arma una vez por resolución)
+        if (table == null || table.orders != orders) table = OrderTable.of(graph, orders);
+        return decode(priorities, table, parent);
+    }
+
+    /**
+     * Decodificación incremental: si 'parent' fue decodificada sobre la misma tabla de órdenes,
+     * se reutiliza el prefijo común de su orden de ruteo (se re-aplican sus reservas sin
+     * buscar) y sólo se rutea el sufijo. El resultado es idéntico al de decode(...) completo.
+     */
+    public Solution decode(double[] priorities, OrderTable orders, Solution parent) {
+        final PlannerMetrics m = metrics;
+        final long tStart = m != null ? System.nanoTime() : 0L;
+
+        // 0) Ordenar órdenes por prioridad (mayor primero), sin boxing
+        final int n = orders.size();
+        if (sortScratch.length < n) sortScratch = new int[n];
+        int[] perm = new int[n];
+        IndexSort.sortDescending(priorities, perm, sortScratch);
+        if (m != null) m.sortNanos.add(System.nanoTime() - tStart);
+
+        // 1) Misma permutación ya decodificada: misma Solution
+        final DecodeCache memo = cache;
+        final long key = memo != null ? DecodeCache.hash(perm) : 0L;
+        if (memo != null) {
+            Solution hit = memo.get(key, perm);
+            if (hit != null && hit.trace.orders == orders) {
+                if (m != null) m.cacheHits.increment();
+                return hit;
+            }
+            if (m != null) m.cacheMisses.increment();
+        }
+
+        // Ledger limpio (se recrea si el grafo ganó instancias desde la última vez)
+        if (ledger == null || ledger.size() != graph.instanceCount()) {
+            ledger = baseline != null ? baseline.snapshot() : new CapacityLedger(graph);
+        } else {
+            ledger.reset();
+        }
+        if (batch != null) batch.clear();
 
         Solution sol = new Solution();
+        Solution.Delivery[] outcome = new Solution.Delivery[n];
+        double[] penaltyPrefix = new double[n + 1]; // penalidad acumulada antes de cada posición
 
-        // 2) Ruteo secuencial desde hora 0
-        for (int k = 0; k < idx.length; k++) {
-            int i = idx[k];
-            PackageOrder ord = orders.get(i);
-            TEGraph.Node start = graph.node(ord.origin().code(), 0);
-            PathFinder.PathResult pr = dijkstra.find(graph, start, ord.destination().code(), ord.deadlineHour());
-            if (pr == null) {
-                sol.backlog.add(ord);
-            } else {
-                boolean reserved = PathFinder.reservePath(pr.edges, ord.sizeUnits());
-                if (reserved) {
-                    sol.deliveries.add(new Solution.Delivery(ord, pr.arrivalHour));
+        // 2) Prefijo común con el padre: re-aplicar sus reservas tal cual
+        int k = 0;
+        Solution.Trace pt = parent != null ? parent.trace : null;
+        if (pt != null && pt.orders == orders && pt.objective == objective) {
+            while (k < n && pt.perm[k] == perm[k]) {
+                Solution.Delivery dv = pt.outcome[k];
+                if (dv == null) {
+                    sol.backlog.add(orders.order(perm[k]));
                 } else {
-                    sol.backlog.add(ord);
+                    int j = perm[k];
+                    if (dv.isSplit()) {
+                        for (Solution.Split sp: dv.splits) {
+                            PathFinder.bookRoute(graph, ledger, orders.origin[j], orders.release[j], sp.legs, sp.legs.length, sp.units);
+                        }
+                    } else {
+                        PathFinder.bookRoute(graph, ledger, orders.origin[j], orders.release[j], dv.legs, dv.legs.length, orders.size[j]);
+                    }
+                    sol.deliveries.add(dv);
                 }
+                outcome[k] = dv;
+                penaltyPrefix[k + 1] = pt.penaltyPrefix[k + 1];
+                k++;
+            }
+            if (m != null) m.prefixReused.add(k);
+        }
+
+        // 3) Ruteo secuencial (desde la hora de liberación de cada orden) del resto
+        for (; k < n; k++) {
+            int i = perm[k];
+            Solution.Delivery dv = route(orders, i);
+            double pen = 0.0;
+            if (dv == null) {
+                sol.backlog.add(orders.order(i));
+            } else {
+                sol.deliveries.add(dv);
+                // 3a) Objetivo incremental: aporte de esta orden con el ledger recién reservado
+                if (!objective.isEmpty()) pen = objective.delivered(graph, orders, i, dv, ledger);
             }
+            outcome[k] = dv;
+            penaltyPrefix[k + 1] = penaltyPrefix[k] + pen;
         }
+        sol.trace = new Solution.Trace(orders, perm, outcome, objective, penaltyPrefix);
 
-        // 3) Evaluación simple: entregas y retraso (si llegara al límite exacto, no penaliza)
+        // 4) Evaluación: entregas primero; la penalidad (ya acumulada) desempata
         int delivered = sol.deliveredCount();
-        int total = orders.size();
-        sol.percentDelivered = (100.0 * delivered) / Math.max(1, total);
+        sol.percentDelivered = (100.0 * delivered) / Math.max(1, n);
+        sol.penalty = penaltyPrefix[n];
+        sol.fitness = delivered * 1000.0 - sol.penalty; // escala para priorizar entregas
+        if (memo != null) memo.put(key, perm, sol);
 
-        double penalty = 0.0; // se puede extender con retraso esperado
-        sol.fitness = delivered * 1000.0 - penalty; // escala para priorizar entregas
+        if (m != null) {
+            m.decodes.increment();
+            m.backlogged.add(sol.backlog.size());
+            if (batch != null) m.batchSweeps.add(batch.sweeps);
+            m.decodeMicros.record((System.nanoTime() - tStart) / 1000L);
+        }
         return sol;
     }
+
+    /** Rutea y reserva la orden i en el ledger actual; null si pasa a backlog. */
+    private Solution.Delivery route(OrderTable t, int i) {
+        final PlannerMetrics m = metrics;
+        if (m != null) m.ordersRouted.increment();
+        ReachabilityIndex reach = graph.reachability();
+        final int o = t.origin[i], d = t.destination[i], units = t.size[i];
+        final int release = t.release[i], deadline = t.deadline[i];
+        if (release >= graph.hours()) return null;
+
+        // a) Rechazo O(1): ni con capacidad ilimitada (y saliendo en hora 0) llega antes del deadline
+        if (reach.unreachable(o, d, deadline)) {
+            if (m != null) m.unreachable.increment();
+            return null;
+        }
+
+        // b) Ruta óptima sin capacidad aún con cupo (y que sale tras la liberación): se reserva sin buscar
+        final long t0 = m != null ? System.nanoTime() : 0L;
+        int[] cached = reach.path(o, d);
+        if (cached.length > 0 && graph.departureHour(cached[0]) >= release
+                && PathFinder.reserveRoute(graph, ledger, o, release, cached, cached.length, units)) {
+            if (m != null) {
+                m.cachedPaths.increment();
+                m.reserveNanos.add(System.nanoTime() - t0);
+            }
+            return new Solution.Delivery(t.order(i), reach.earliest(o, d), cached);
+        }
+
+        // c) Lote por origen: la llegada del árbol es cota inferior; su ruta se reserva si sigue con cupo
+        if (batch != null) {
+            OriginBatch.Tree tree = batch.tree(ledger, o, release, false);
+            for (int attempt = 0; attempt < 2; attempt++) {
+                int arrival = tree.arrival[d];
+                if (arrival < 0 || arrival > deadline) {
+                    if (m != null) m.reserveNanos.add(System.nanoTime() - t0);
+                    return null;
+                }
+                int[] legs = tree.path[d];
+                if (PathFinder.reserveRoute(graph, ledger, o, release, legs, legs.length, units)) {
+                    if (m != null) {
+                        m.batchHits.increment();
+                        m.reserveNanos.add(System.nanoTime() - t0);
+                    }
+                    return new Solution.Delivery(t.order(i), arrival, legs);
+                }
+                // la ruta aún lleva alguna unidad pero no todas: el árbol sigue vigente, buscar con 'units'
+                if (PathFinder.bottleneck(graph, ledger, o, release, legs, legs.length) > 0) break;
+                tree = batch.tree(ledger, o, release, true); // se saturó un tramo: re-barrer con cupos vigentes
+            }
+        }
+
+        // d) Búsqueda con los cupos actuales, sólo por vuelos con lugar para todas las unidades
+        final long t1 = m != null ? System.nanoTime() : 0L;
+        int arrival = finder.route(graph, ledger, o, release, d, deadline, units);
+        final long t2 = m != null ? System.nanoTime() : 0L;
+        boolean ok = arrival >= 0 && PathFinder.reserveRoute(graph, ledger, o, release, finder.legs(), finder.legCount(), units);
+        if (m != null) {
+            m.reserveNanos.add((t1 - t0) + (System.nanoTime() - t2));
+            m.routeNanos.add(t2 - t1);
+        }
+        if (ok) return new Solution.Delivery(t.order(i), arrival, Arrays.copyOf(finder.legs(), finder.legCount()));
+
+        // e) Ninguna ruta lleva la orden completa: dividirla (si está habilitado)
+        return units > 1 && maxSplits > 1 ? split(t, i) : null;
+    }
+
+    /**
+     * Envío dividido: toma repetidamente la ruta más temprana con algún cupo y le asigna
+     * tantas unidades como permita su cuello de botella (vuelos y almacenes), hasta cubrir
+     * la orden con a lo sumo maxSplits partes. Todo o nada: si no alcanza, se liberan
+     * las partes ya reservadas. Cada parte reserva sus unidades de una vez por instancia.
+     */
+    private Solution.Delivery split(OrderTable t, int i) {
+        final int o = t.origin[i], d = t.destination[i], release = t.release[i], deadline = t.deadline[i];
+        Solution.Split[] parts = new Solution.Split[maxSplits];
+        int count = 0, left = t.size[i], last = -1;
+        while (left > 0 && count < maxSplits) {
+            int arrival = finder.route(graph, ledger, o, release, d, deadline, 1);
+            if (arrival < 0) break;
+            int[] legs = Arrays.copyOf(finder.legs(), finder.legCount());
+            int q = Math.min(left, PathFinder.bottleneck(graph, ledger, o, release, legs, legs.length));
+            if (q <= 0) break;
+            PathFinder.bookRoute(graph, ledger, o, release, legs, legs.length, q);
+            parts[count++] = new Solution.Split(legs, q, arrival);
+            left -= q;
+            last = Math.max(last, arrival);
+        }
+        if (left > 0) {
+            for (int k = 0; k < count; k++) {
+                PathFinder.bookRoute(graph, ledger, o, release, parts[k].legs, parts[k].legs.length, -parts[k].units);
+            }
+            return null;
+        }
+        if (metrics != null) metrics.splitOrders.increment();
+        return new Solution.Delivery(t.order(i), last, Arrays.copyOf(parts, count));
+    }
 }
@@ -0,0 +1,42 @@
+package com.morapack.mpa.planner;
+
+/**
+ * Ordenamiento primitivo de índices por clave double (sin boxing).
+ * Merge sort estable: a igual prioridad se conserva el orden ascendente de índice,
+ * igual que Arrays.sort sobre Integer[] con comparador.
+ */
+final class IndexSort {
+    private static final int INSERTION_RUN = 32;
+
+    private IndexSort() { }
+
+    /** Deja en perm[0..n) los índices 0..n-1 ordenados por keys descendente; tmp debe tener >= n. */
+    static void sortDescending(double[] keys, int[] perm, int[] tmp) {
+        final int n = perm.length;
+        for (int i = 0; i < n; i++) perm[i] = i;
+
+        for (int lo = 0; lo < n; lo += INSERTION_RUN) {
+            int hi = Math.min(lo + INSERTION_RUN, n);
+            for (int i = lo + 1; i < hi; i++) {
+                int x = perm[i];
+                double kx = keys[x];
+                int j = i - 1;
+                while (j >= lo && keys[perm[j]] < kx) { perm[j + 1] = perm[j]; j--; }
+                perm[j + 1] = x;
+            }
+        }
+
+        int[] src = perm, dst = tmp;
+        for (int width = INSERTION_RUN; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + (width << 1), n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) dst[k++] = keys[src[i]] >= keys[src[j]] ? src[i++] : src[j++];
+                while (i < mid) dst[k++] = src[i++];
+                while (j < hi) dst[k++] = src[j++];
+            }
+            int[] t = src; src = dst; dst = t;
+        }
+        if (src != perm) System.arraycopy(src, 0, perm, 0, n);
+    }
+}
@@ -0,0 +1,82 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * MPA en modelo de islas:
+ * - K poblaciones MPAPlanner independientes, cada una en su hilo y con su semilla
+ * - Topología en anillo: cada M generaciones la isla i deja su elite en el buzón de i+1
+ *   (AtomicReferenceArray, sin locks; si el vecino no lo recogió, se sobrescribe con el más nuevo)
+ * - Resultado: el mejor elite entre todas las islas
+ *
+ * Como las islas avanzan a ritmos distintos, el momento de cada migración depende de la
+ * planificación de hilos: a diferencia de MPAPlanner, el resultado no es reproducible bit a bit.
+ */
+public class IslandPlanner {
+    private final TEGraph graph;
+    private final int islands;
+    private final int population;
+    private final long timeLimitMs;
+    private final long seed;
+    private final int migrationInterval;
+
+    public IslandPlanner(TEGraph graph, int islands, int population, long timeLimitMs, long seed, int migrationInterval) {
+        this.graph = graph;
+        this.islands = Math.max(1, islands);
+        this.population = population;
+        this.timeLimitMs = timeLimitMs;
+        this.seed = seed;
+        this.migrationInterval = migrationInterval;
+    }
+
+    public MPAPlanner.Result solveWeekly(List<PackageOrder> orders) {
+        final long t0 = System.currentTimeMillis();
+        final long noImproveMs = Math.max(2000L, (long) (timeLimitMs * 0.30));
+
+        final AtomicReferenceArray<double[]> mailbox = new AtomicReferenceArray<>(islands);
+
+        ExecutorService pool = Executors.newFixedThreadPool(islands, r -> {
+            Thread t = new Thread(r, "mpa-island");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<MPAPlanner.Result>> runs = new ArrayList<>(islands);
+            for (int i = 0; i < islands; i++) {
+                final int inbox = i, next = (i + 1) % islands;
+                MPAPlanner.Migration ring = new MPAPlanner.Migration() {
+                    @Override public void emigrate(double[] elite) { mailbox.set(next, elite); }
+                    @Override public double[] immigrate() { return mailbox.getAndSet(inbox, null); }
+                };
+                // semillas separadas por la constante de oro para evitar correlación entre islas
+                MPAPlanner mpa = new MPAPlanner(graph, population, timeLimitMs, seed + i * 0x9E3779B97F4A7C15L,
+                        Integer.MAX_VALUE, noImproveMs);
+                if (islands > 1) mpa.withMigration(ring, migrationInterval);
+                runs.add(pool.submit(() -> mpa.solveWeekly(orders)));
+            }
+
+            MPAPlanner.Result best = null;
+            for (Future<MPAPlanner.Result> f: runs) {
+                MPAPlanner.Result r = f.get();
+                if (best == null || r.best.fitness > best.best.fitness) best = r;
+            }
+            return new MPAPlanner.Result(best.best, System.currentTimeMillis() - t0, best.trace, best.cancelled, best.bestPriorities);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Islas interrumpidas", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló una isla", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package com.morapack.mpa.planner;
 
 import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.ConnectionScanPathFinder;
 import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.graph.TimeExpandedPathFinder;
+import com.morapack.mpa.metrics.PlannerMetrics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 /**
  * Marine Predators Algorithm (MPA) simplificado
@@ -14,13 +29,63 @@ import java.util.Random;
  *    F2 Transición (mix)        [1/3, 2/3)
  *    F3 Explotar (Lévy)         [2/3, 1]
  * - Decodificador: convierte prioridades -> orden de ruteo -> Solución
+ *
+ * Evaluación paralela: cada generación decodifica a todos los depredadores en
+ * 'workers' hilos (un Decoder por hilo). Cada depredador recibe su propio
+ * SplittableRandom derivado de la semilla, por lo que el resultado para una
+ * semilla dada no depende del número de hilos.
+ *
+ * Decodificación incremental: cada candidato reutiliza el prefijo común de ruteo
+ * de su padre X[p] (ver Decoder), útil cuando los movimientos son pequeños.
+ *
+ * Migración (opcional): intercambio periódico de elites con otras poblaciones (IslandPlanner).
+ *
+ * Anytime: cada nuevo elite se publica al Listener y queda en la traza del Result;
+ * cancel() detiene la corrida al final de la generación en curso.
+ *
+ * Modo adaptativo (opcional, withAdaptive): el operador de cada candidato, los pasos, los
+ * reinicios y el corte por convergencia se ajustan según la tasa de éxito observada, con
+ * efecto FADs y memoria marina (ver AdaptiveControl), en vez de tercios de tiempo fijos.
+ *
+ * Checkpoints (opcional): la población, el fitness, el elite y sus cupos se escriben a disco
+ * periódicamente (ver Checkpoint) y resumeFrom(...) reanuda la búsqueda sin reinicializar.
  */
 public class MPAPlanner {
 
     public static class Result {
         public final Solution best;
         public final long runtimeMs;
-        public Result(Solution best, long runtimeMs) { this.best = best; this.runtimeMs = runtimeMs; }
+        public final List<TracePoint> trace; // mejor fitness en el tiempo (una entrada por nuevo elite)
+        public final boolean cancelled;
+        public final double[] bestPriorities; // vector del elite (para warm start), null si no se conoce
+        public Result(Solution best, long runtimeMs) { this(best, runtimeMs, List.of(), false, null); }
+        public Result(Solution best, long runtimeMs, List<TracePoint> trace, boolean cancelled, double[] bestPriorities) {
+            this.best = best; this.runtimeMs = runtimeMs; this.trace = trace; this.cancelled = cancelled;
+            this.bestPriorities = bestPriorities;
+        }
+    }
+
+    /** Punto de la traza de convergencia. */
+    public static class TracePoint {
+        public final long elapsedMs;
+        public final int iteration;   // 0 = población inicial
+        public final double fitness;
+        public final double percentDelivered;
+        public TracePoint(long elapsedMs, int iteration, double fitness, double percentDelivered) {
+            this.elapsedMs = elapsedMs; this.iteration = iteration;
+            this.fitness = fitness; this.percentDelivered = percentDelivered;
+        }
+        @Override public String toString() {
+            return elapsedMs + "," + iteration + "," + String.format("%.2f", percentDelivered);
+        }
+    }
+
+    /**
+     * Resultado "anytime": se invoca en el hilo de solveWeekly cada vez que hay un nuevo elite
+     * (la primera vez tras evaluar la población inicial). La Solution no cambia después.
+     */
+    public interface Listener {
+        void onImprovement(Solution elite, long elapsedMs, int iteration);
     }
 
     private final TEGraph graph;
@@ -29,7 +94,25 @@ public class MPAPlanner {
     private final long timeLimitMs;
     private final int maxIterations;
     private final long noImproveMillis;
-    private final Random rnd;
+    private final SplittableRandom rnd;
+    private int workers = 1;
+    private boolean incremental = true;
+    private CapacityLedger baseline;
+    private Migration migration;
+    private int migrationInterval;
+    private PlannerMetrics metrics;
+    private Listener listener;
+    private volatile boolean cancelled;
+    private List<double[]> seeds = List.of();
+    private Objective objective = Objective.DELIVERED_ONLY;
+    private boolean batched;
+    private int maxSplits = 1;
+    private int cacheEntries;   // 0 = sin memo de decodificaciones
+    private boolean connectionScan;
+    private Path checkpointFile;       // null = sin checkpoints
+    private long checkpointEveryMs;
+    private Checkpoint resume;         // null = población inicial aleatoria
+    private boolean adaptive;
 
     // Parámetros de movimiento
     private static final double BROW_SIGMA_F1 = 0.10;  // exploración
@@ -52,78 +135,461 @@ public class MPAPlanner {
         this.timeLimitMs = Math.max(1000L, timeLimitMs);
         this.maxIterations = maxIterations;
         this.noImproveMillis = noImproveMillis;
-        this.rnd = new Random(seed);
+        this.rnd = new SplittableRandom(seed);
         this.levySigma = computeLevySigma(LEVY_BETA);
     }
 
+    /** Número de hilos para evaluar la población (1 = secuencial en el hilo llamador). */
+    public MPAPlanner withWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+        return this;
+    }
+
+    /** Decodifica cada candidato reutilizando el prefijo de ruteo de su padre (por defecto activo). */
+    public MPAPlanner withIncrementalDecode(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /** Ruteo por lotes por origen en el decodificador (ver Decoder.setBatchedRouting). */
+    public MPAPlanner withBatchedRouting(boolean batched) {
+        this.batched = batched;
+        return this;
+    }
+
+    /** Motor de rutas de los decodificadores: ConnectionScanPathFinder (true) o TimeExpandedPathFinder. */
+    public MPAPlanner withConnectionScan(boolean connectionScan) {
+        this.connectionScan = connectionScan;
+        return this;
+    }
+
+    /**
+     * Escribe un Checkpoint en 'file' al cerrar la generación cada vez que pasaron 'everyMs'
+     * desde el anterior, y uno final al terminar. Un error de E/S aborta la corrida.
+     */
+    public MPAPlanner withCheckpoint(Path file, long everyMs) {
+        this.checkpointFile = file;
+        this.checkpointEveryMs = Math.max(0L, everyMs);
+        return this;
+    }
+
+    /**
+     * Reanuda desde un checkpoint de las mismas órdenes y población: X y el elite se restauran
+     * tal cual y el resto de los depredadores queda con su fitness guardado (sin traza), así que
+     * no se vuelve a evaluar la población inicial. El límite de tiempo rige para esta corrida;
+     * el progreso (fases, FADs) se mide sobre el total ms previos + límite, así la búsqueda sigue
+     * en la fase en que se interrumpió. El checkpoint se consume en el siguiente solveWeekly.
+     */
+    public MPAPlanner resumeFrom(Checkpoint checkpoint) {
+        this.resume = checkpoint;
+        return this;
+    }
+
+    /**
+     * Control adaptativo de operadores, pasos y reinicios (ver AdaptiveControl). Reemplaza las
+     * fases por tercios de tiempo y el corte por noImproveMillis: la corrida termina por tiempo,
+     * iteraciones, cancelación o convergencia (reinicios seguidos sin mejora del elite).
+     */
+    public MPAPlanner withAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this;
+    }
+
+    /** Envíos divididos: hasta 'maxParts' rutas por orden de varias unidades (ver Decoder.setSplitShipments). */
+    public MPAPlanner withSplitShipments(int maxParts) {
+        this.maxSplits = maxParts;
+        return this;
+    }
+
+    /**
+     * Memo LRU de hasta 'entries' decodificaciones por permutación, compartido entre workers
+     * (0 = desactivado). Cada entrada retiene una Solution completa: dimensionar según órdenes.
+     */
+    public MPAPlanner withDecodeCache(int entries) {
+        this.cacheEntries = entries;
+        return this;
+    }
+
+    /** Planifica sobre cupos ya comprometidos (p.ej. rutas en vuelo del planificador continuo). */
+    public MPAPlanner withBaseline(CapacityLedger committed) {
+        this.baseline = committed;
+        return this;
+    }
+
+    /**
+     * Canal de intercambio de elites entre poblaciones (modelo de islas, ver IslandPlanner).
+     * Las implementaciones deben ser thread-safe; los vectores publicados no se modifican.
+     */
+    public interface Migration {
+        /** Publica el vector de prioridades elite de esta población. */
+        void emigrate(double[] elite);
+        /** Vector recibido de otra población desde la última llamada, o null si no hay. */
+        double[] immigrate();
+    }
+
+    /** Cada 'everyGenerations' publica el elite y reemplaza al peor depredador por un inmigrante. */
+    public MPAPlanner withMigration(Migration migration, int everyGenerations) {
+        this.migration = migration;
+        this.migrationInterval = Math.max(1, everyGenerations);
+        return this;
+    }
+
+    /** Registra iteraciones, mejoras por fase y métricas de decodificación/ruteo en 'metrics'. */
+    public MPAPlanner withMetrics(PlannerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Warm start: los primeros depredadores parten de estos vectores (p.ej. el elite de una
+     * corrida anterior o heurísticas de WarmStart) en lugar de prioridades uniformes.
+     * Cada vector debe tener una entrada por orden; se usan como máximo 'population'.
+     */
+    public MPAPlanner withSeeds(List<double[]> seeds) {
+        this.seeds = List.copyOf(seeds);
+        return this;
+    }
+
+    /** Objetivo multi-término para el fitness (por defecto sólo entregas). */
+    public MPAPlanner withObjective(Objective objective) {
+        this.objective = objective;
+        return this;
+    }
+
+    /** Suscribe un listener que recibe cada nuevo elite apenas se encuentra. */
+    public MPAPlanner withListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Cancelación cooperativa (desde cualquier hilo): solveWeekly termina al cerrar la
+     * generación en curso y devuelve el mejor elite hasta ese momento. Un cancel() previo al
+     * inicio cancela la próxima corrida; cada corrida consume el pedido al terminar, así el
+     * planner puede reutilizarse.
+     */
+    public void cancel() { cancelled = true; }
+
     public Result solveWeekly(List<PackageOrder> orders) {
         final long t0 = System.currentTimeMillis();
+        final int nWorkers = Math.min(workers, population);
+        final Decoder[] decoders = new Decoder[nWorkers];
+        final DecodeCache cache = cacheEntries > 0 ? new DecodeCache(cacheEntries) : null;
+        for (int w=0; w<nWorkers; w++) {
+            decoders[w] = w == 0 && baseline == null ? decoder : new Decoder(graph, baseline);
+            decoders[w].setMetrics(metrics);
+            decoders[w].setObjective(objective);
+            decoders[w].setBatchedRouting(batched);
+            decoders[w].setSplitShipments(maxSplits);
+            decoders[w].setCache(cache);
+            decoders[w].setPathFinder(connectionScan ? new ConnectionScanPathFinder() : new TimeExpandedPathFinder());
+        }
+        final ExecutorService pool = nWorkers > 1 ? newWorkerPool(nWorkers) : null;
 
-        // Inicialización
-        final int n = orders.size();
-        double[][] X = new double[population][n];
-        for (int p=0; p<population; p++) for (int i=0; i<n; i++) X[p][i] = rnd.nextDouble();
-
-        Solution[] fit = new Solution[population];
-        for (int p=0; p<population; p++) fit[p] = decoder.decode(X[p], orders);
-
-        int eliteIdx = 0;
-        for (int p=1; p<population; p++) if (fit[p].fitness > fit[eliteIdx].fitness) eliteIdx = p;
-        Solution elite = fit[eliteIdx];
-
-        long lastImprove = System.currentTimeMillis();
-        int iter = 0;
-
-        while (System.currentTimeMillis() - t0 < timeLimitMs && iter < maxIterations) {
-            iter++;
-            double progress = (System.currentTimeMillis() - t0) / (double) timeLimitMs;
-
-            for (int p=0; p<population; p++) {
-                double[] cand = X[p].clone();
-
-                // Fases del MPA
-                if (progress < 1.0/3.0) {
-                    brownianMove(cand, BROW_SIGMA_F1);
-                } else if (progress < 2.0/3.0) {
-                    brownianMove(cand, BROW_SIGMA_F2);
-                    levyJump(cand, LEVY_SCALE_F2);
-                } else {
-                    // Intensificación alrededor del elite
-                    for (int i=0; i<n; i++) cand[i] = 0.5*cand[i] + 0.5*X[eliteIdx][i];
-                    levyJump(cand, LEVY_SCALE_F3);
+        try {
+            // Inicialización
+            final int n = orders.size();
+            final OrderTable table = OrderTable.of(graph, orders);
+            double[][] X = new double[population][n];
+            Solution[] fit = new Solution[population];
+            int eliteIdx = 0;
+            int iter = 0;
+            long priorMs = 0L; // ms de corridas anteriores (checkpoint)
+            final Checkpoint resume = this.resume;
+            this.resume = null; // se usa una sola vez
+            if (resume != null) {
+                if (!resume.matches(orders) || resume.population() != population) {
+                    throw new IllegalArgumentException("Checkpoint de " + resume.population() + " depredadores y "
+                            + resume.orderCount() + " órdenes; no corresponde a esta corrida");
+                }
+                for (int p=0; p<population; p++) {
+                    X[p] = resume.X[p].clone();
+                    fit[p] = new Solution();
+                    fit[p].fitness = resume.fitness[p];
                 }
-                clamp01(cand);
-
-                Solution s = decoder.decode(cand, orders);
-                if (s.fitness > fit[p].fitness) {
-                    X[p] = cand;
-                    fit[p] = s;
-                    if (s.fitness > elite.fitness) {
-                        elite = s;
-                        eliteIdx = p;
-                        lastImprove = System.currentTimeMillis();
+                eliteIdx = resume.eliteIndex;
+                fit[eliteIdx] = resume.elite(orders);
+                iter = resume.iteration;
+                priorMs = resume.elapsedMs;
+            } else {
+                for (int p=0; p<population; p++) for (int i=0; i<n; i++) X[p][i] = rnd.nextDouble();
+                for (int p=0; p<Math.min(population, seeds.size()); p++) {
+                    double[] seed = seeds.get(p);
+                    if (seed.length != n) {
+                        throw new IllegalArgumentException("Semilla " + p + " con " + seed.length + " prioridades; se esperaban " + n);
                     }
+                    X[p] = seed.clone();
+                    clamp01(X[p]);
                 }
+                evaluate(pool, decoders, (d, p) -> fit[p] = d.decode(X[p], table, null));
+                for (int p=1; p<population; p++) if (fit[p].fitness > fit[eliteIdx].fitness) eliteIdx = p;
             }
 
-            // Early stop: sin mejora por una ventana de tiempo
-            if (System.currentTimeMillis() - lastImprove > noImproveMillis) break;
+            Solution elite = fit[eliteIdx];
+            final List<TracePoint> trace = new ArrayList<>();
+            publish(elite, t0, iter, trace);
+            Solution published = elite;
+
+            long lastImprove = System.currentTimeMillis();
+            long lastCheckpoint = lastImprove;
+            final int firstIter = iter;
+            final AdaptiveControl control = adaptive
+                    ? new AdaptiveControl(BROW_SIGMA_F1, LEVY_SCALE_F2, LEVY_SCALE_F3, population) : null;
+            final int[] ops = new int[population]; // operador de cada candidato (modo adaptativo)
+            if (control != null) control.remember(X[eliteIdx], elite.fitness);
+            final double[][] cands = new double[population][];
+            final Solution[] evals = new Solution[population];
+            final SplittableRandom[] streams = new SplittableRandom[population];
+
+            while (!cancelled && System.currentTimeMillis() - t0 < timeLimitMs && iter - firstIter < maxIterations) {
+                iter++;
+                if (metrics != null) metrics.iterations.increment();
+                final double progress = (priorMs + System.currentTimeMillis() - t0) / (double) (priorMs + timeLimitMs);
+                final int phase = progress < 1.0/3.0 ? 0 : progress < 2.0/3.0 ? 1 : 2;
+                final double[] eliteVec = X[eliteIdx];
+                for (int p=0; p<population; p++) streams[p] = rnd.split();
+
+                evaluate(pool, decoders, (d, p) -> {
+                    double[] cand = X[p].clone();
+                    RandomGenerator r = streams[p];
+
+                    if (control != null) {
+                        ops[p] = control.pick(r);
+                        adaptiveMove(control, ops[p], cand, X, eliteVec, progress, r);
+                    } else if (phase == 0) { // Fases del MPA
+                        brownianMove(cand, BROW_SIGMA_F1, r);
+                    } else if (phase == 1) {
+                        brownianMove(cand, BROW_SIGMA_F2, r);
+                        levyJump(cand, LEVY_SCALE_F2, r);
+                    } else {
+                        // Intensificación alrededor del elite (de inicio de generación)
+                        for (int i=0; i<n; i++) cand[i] = 0.5*cand[i] + 0.5*eliteVec[i];
+                        levyJump(cand, LEVY_SCALE_F3, r);
+                    }
+                    clamp01(cand);
+
+                    cands[p] = cand;
+                    evals[p] = d.decode(cand, table, incremental ? fit[p] : null);
+                });
+
+                // Selección en orden de índice (determinista sin importar el nº de hilos)
+                final Solution eliteBefore = elite;
+                for (int p=0; p<population; p++) {
+                    Solution s = evals[p];
+                    boolean improved = s.fitness > fit[p].fitness;
+                    // en modo adaptativo las mejoras se cuentan por operador, no por fase
+                    if (control != null) control.record(ops[p], improved);
+                    if (improved) {
+                        X[p] = cands[p];
+                        fit[p] = s;
+                        if (metrics != null) {
+                            (control == null ? metrics.improvementsByPhase[phase] : metrics.improvementsByOperator[ops[p]]).increment();
+                        }
+                        if (s.fitness > elite.fitness) {
+                            elite = s;
+                            eliteIdx = p;
+                            lastImprove = System.currentTimeMillis();
+                            if (metrics != null) {
+                                (control == null ? metrics.eliteImprovementsByPhase[phase] : metrics.eliteImprovementsByOperator[ops[p]]).increment();
+                            }
+                        }
+                    }
+                }
+                boolean converged = false;
+                if (control != null) {
+                    control.endGeneration(elite != eliteBefore);
+                    if (elite != eliteBefore) control.remember(X[eliteIdx], elite.fitness);
+                    if (control.shouldRestart()) {
+                        control.restarted();
+                        converged = control.converged(); // convergido: se corta sin re-sembrar
+                        if (!converged) {
+                            eliteIdx = restart(control, pool, decoders, table, X, fit, eliteIdx);
+                            if (fit[eliteIdx] != elite) { // un re-sembrado superó al elite
+                                elite = fit[eliteIdx];
+                                lastImprove = System.currentTimeMillis();
+                                control.eliteImproved();
+                                control.remember(X[eliteIdx], elite.fitness);
+                                if (metrics != null) metrics.restartEliteImprovements.increment();
+                            }
+                        }
+                    }
+                }
+
+                // Migración: publicar elite y reemplazar al peor por el inmigrante recibido
+                if (migration != null && iter % migrationInterval == 0) {
+                    migration.emigrate(X[eliteIdx]);
+                    double[] in = migration.immigrate();
+                    if (in != null && in.length == n) {
+                        if (metrics != null) metrics.migrations.increment();
+                        int worst = eliteIdx == 0 ? 1 : 0; // nunca se reemplaza al elite
+                        for (int p=0; p<population; p++) {
+                            if (p != eliteIdx && fit[p].fitness < fit[worst].fitness) worst = p;
+                        }
+                        X[worst] = in;
+                        fit[worst] = decoders[0].decode(in, table, null);
+                        if (fit[worst].fitness > elite.fitness) {
+                            elite = fit[worst];
+                            eliteIdx = worst;
+                            lastImprove = System.currentTimeMillis();
+                        }
+                    }
+                }
+
+                // Anytime: publicar el nuevo elite (una vez por generación)
+                if (elite != published) {
+                    publish(elite, t0, iter, trace);
+                    published = elite;
+                }
+
+                if (checkpointFile != null && System.currentTimeMillis() - lastCheckpoint >= checkpointEveryMs) {
+                    checkpoint(table, X, fit, eliteIdx, iter, priorMs + System.currentTimeMillis() - t0);
+                    lastCheckpoint = System.currentTimeMillis();
+                }
+
+                // Early stop: sin mejora por una ventana de tiempo (adaptativo: por convergencia)
+                if (control != null ? converged : System.currentTimeMillis() - lastImprove > noImproveMillis) break;
+            }
+
+            long runtime = System.currentTimeMillis() - t0;
+            if (checkpointFile != null) checkpoint(table, X, fit, eliteIdx, iter, priorMs + runtime);
+            return new Result(elite, runtime, trace, cancelled, X[eliteIdx].clone());
+        } finally {
+            cancelled = false; // consumido por esta corrida
+            if (pool != null) pool.shutdownNow();
         }
+    }
 
-        long runtime = System.currentTimeMillis() - t0;
-        return new Result(elite, runtime);
+    private void checkpoint(OrderTable table, double[][] X, Solution[] fit, int eliteIdx, int iter, long elapsedMs) {
+        try {
+            Checkpoint.capture(graph, baseline, table, X, fit, eliteIdx, iter, elapsedMs).write(checkpointFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el checkpoint " + checkpointFile, e);
+        }
+        if (metrics != null) metrics.checkpoints.increment();
+    }
+
+    private void publish(Solution elite, long t0, int iter, List<TracePoint> trace) {
+        long elapsed = System.currentTimeMillis() - t0;
+        trace.add(new TracePoint(elapsed, iter, elite.fitness, elite.percentDelivered));
+        if (listener != null) listener.onImprovement(elite, elapsed, iter);
+    }
+
+    /** Trabajo sobre un depredador p usando el Decoder del hilo que lo ejecuta. */
+    private interface PredatorTask { void run(Decoder d, int p); }
+
+    /** Reparte los depredadores en franjas (p = w, w+W, ...) y espera a que terminen todas. */
+    private void evaluate(ExecutorService pool, Decoder[] decoders, PredatorTask task) {
+        final int nWorkers = decoders.length;
+        if (pool == null) {
+            for (int p=0; p<population; p++) task.run(decoders[0], p);
+            return;
+        }
+        List<Callable<Void>> jobs = new ArrayList<>(nWorkers);
+        for (int w=0; w<nWorkers; w++) {
+            final int wi = w;
+            jobs.add(() -> {
+                for (int p=wi; p<population; p+=nWorkers) task.run(decoders[wi], p);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f: pool.invokeAll(jobs)) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la decodificación en un worker", e.getCause());
+        }
+    }
+
+    private static ExecutorService newWorkerPool(int nWorkers) {
+        return Executors.newFixedThreadPool(nWorkers, r -> {
+            Thread t = new Thread(r, "mpa-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Candidato del modo adaptativo con el operador 'op' y su paso vigente. */
+    private void adaptiveMove(AdaptiveControl control, int op, double[] cand, double[][] X, double[] eliteVec,
+                              double progress, RandomGenerator r) {
+        switch (op) {
+            case AdaptiveControl.BROWNIAN -> brownianMove(cand, control.step(op), r);
+            case AdaptiveControl.LEVY -> levyJump(cand, control.step(op), r);
+            case AdaptiveControl.ELITE -> {
+                for (int i=0; i<cand.length; i++) cand[i] = 0.5*cand[i] + 0.5*eliteVec[i];
+                levyJump(cand, control.step(op), r);
+            }
+            default -> fadsMove(cand, X, progress, r);
+        }
+    }
+
+    /**
+     * Efecto FADs (MPA estándar) sobre el espacio [0,1]: con prob. FADS_RATE salto aleatorio de
+     * amplitud CF en ~FADS_RATE de las coordenadas (centrado, para no sesgar prioridades);
+     * si no, paso hacia la diferencia entre dos depredadores al azar.
+     */
+    private void fadsMove(double[] cand, double[][] X, double progress, RandomGenerator r) {
+        final double fads = AdaptiveControl.FADS_RATE;
+        final double t = Math.min(1.0, progress);
+        final double cf = Math.pow(1.0 - t, 2.0 * t);
+        if (r.nextDouble() < fads) {
+            for (int i=0; i<cand.length; i++) {
+                if (r.nextDouble() < fads) cand[i] += cf * (2.0 * r.nextDouble() - 1.0);
+            }
+        } else {
+            double u = r.nextDouble();
+            double[] a = X[r.nextInt(population)], b = X[r.nextInt(population)];
+            double scale = fads * (1.0 - u) + u;
+            for (int i=0; i<cand.length; i++) cand[i] += scale * (a[i] - b[i]);
+        }
+    }
+
+    /**
+     * Reinicio parcial: la peor mitad (nunca el elite) se re-siembra, alternando entre la
+     * memoria marina con ruido Browniano y vectores aleatorios, y se re-evalúa.
+     * Devuelve el índice del elite (puede cambiar si un re-sembrado lo supera).
+     */
+    private int restart(AdaptiveControl control, ExecutorService pool, Decoder[] decoders, OrderTable table,
+                        double[][] X, Solution[] fit, int eliteIdx) {
+        final int n = table.size();
+        Integer[] order = new Integer[population];
+        for (int p=0; p<population; p++) order[p] = p;
+        Arrays.sort(order, (a, b) -> Double.compare(fit[a].fitness, fit[b].fitness));
+        final boolean[] reseeded = new boolean[population];
+        int k = 0;
+        for (int j=0; j<population/2; j++) {
+            int p = order[j];
+            if (p == eliteIdx) continue;
+            double[] x = new double[n];
+            if (j % 2 == 0 && control.memorySize() > 0) {
+                System.arraycopy(control.memory(k++ % control.memorySize()), 0, x, 0, n);
+                brownianMove(x, BROW_SIGMA_F1, rnd);
+                clamp01(x);
+            } else {
+                for (int i=0; i<n; i++) x[i] = rnd.nextDouble();
+            }
+            X[p] = x;
+            reseeded[p] = true;
+        }
+        evaluate(pool, decoders, (d, p) -> {
+            if (reseeded[p]) fit[p] = d.decode(X[p], table, null);
+        });
+        if (metrics != null) metrics.restarts.increment();
+        for (int p=0; p<population; p++) if (fit[p].fitness > fit[eliteIdx].fitness) eliteIdx = p;
+        return eliteIdx;
     }
 
     // Movimiento Browniano ~ N(0, sigma^2)
-    private void brownianMove(double[] v, double sigma) {
-        for (int i=0; i<v.length; i++) v[i] += sigma * rnd.nextGaussian();
+    private void brownianMove(double[] v, double sigma, RandomGenerator r) {
+        for (int i=0; i<v.length; i++) v[i] += sigma * r.nextGaussian();
     }
 
     // Salto Lévy con sigma precomputada (menos costo por elemento)
-    private void levyJump(double[] v, double scale) {
+    private void levyJump(double[] v, double scale, RandomGenerator r) {
         for (int i=0; i<v.length; i++) {
-            double u = rnd.nextGaussian() * scale;
-            double vg = rnd.nextGaussian();
+            double u = r.nextGaussian() * scale;
+            double vg = r.nextGaussian();
             double step = (u / Math.pow(Math.abs(vg), 1.0/LEVY_BETA)) * levySigma;
             v[i] += step;
         }
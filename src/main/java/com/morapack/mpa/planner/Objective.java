@@ -0,0 +1,154 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objetivo multi-término para el decodificador:
+ *   fitness = entregadas * 1000 - Σ peso_t * término_t
+ *
+ * Cada término se evalúa una vez por orden, justo después de reservar su ruta (con el
+ * ledger en ese estado), y se acumula sobre la marcha: no hay una pasada extra sobre las
+ * entregas. Como el aporte de cada posición depende sólo del prefijo de ruteo, la traza
+ * guarda la penalidad acumulada por posición y la decodificación incremental la reutiliza.
+ *
+ * Los términos están normalizados a [0, 1] por orden; con pesos moderados la penalidad
+ * nunca supera el valor de una entrega (1000), que sigue siendo el criterio principal.
+ * Los términos propios leen la orden con los accesores públicos de OrderTable.
+ *
+ * No hay término de atraso: el decodificador sólo entrega órdenes que llegan dentro del
+ * deadline (las demás van a backlog), así que el atraso de una entrega siempre sería 0.
+ * En su lugar lateRisk penaliza llegar con poca holgura y transitTime la fracción de la
+ * ventana [liberación, deadline] consumida; el atraso real queda reflejado en el backlog.
+ */
+public final class Objective {
+
+    /** Término de penalidad (mayor = peor) para una orden entregada. */
+    public interface Term {
+        String name();
+        /**
+         * @param legs     tramos reservados (ids de FlightInstance)
+         * @param units    unidades que viajan por esos tramos (t.size(order) si no se dividió)
+         * @param arrival  hora de llegada
+         * @param ledger   cupos ya descontada la reserva de esta orden
+         */
+        double delivered(TEGraph g, OrderTable t, int order, int[] legs, int units, int arrival, CapacityLedger ledger);
+    }
+
+    /** Sin términos: fitness = entregadas * 1000 (comportamiento original). */
+    public static final Objective DELIVERED_ONLY = new Objective(new Term[0], new double[0]);
+
+    private final Term[] terms;
+    private final double[] weights;
+
+    private Objective(Term[] terms, double[] weights) {
+        this.terms = terms;
+        this.weights = weights;
+    }
+
+    /** Objetivo sugerido: holgura, tiempo de tránsito, balance de carga y espera en almacén. */
+    public static Objective standard() {
+        return builder().add(lateRisk(12), 2.0).add(transitTime(), 1.0).add(loadBalance(), 1.0).add(warehouseWait(), 1.0).build();
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    public static final class Builder {
+        private final List<Term> terms = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+
+        public Builder add(Term term, double weight) {
+            terms.add(term);
+            weights.add(weight);
+            return this;
+        }
+
+        public Objective build() {
+            double[] w = new double[weights.size()];
+            for (int k = 0; k < w.length; k++) w[k] = weights.get(k);
+            return new Objective(terms.toArray(new Term[0]), w);
+        }
+    }
+
+    public boolean isEmpty() { return terms.length == 0; }
+
+    /**
+     * Penalidad ponderada de una orden entregada (se suma al acumulado del decode). Si la orden
+     * se dividió, cada parte se evalúa con sus tramos, unidades y llegada, y se suman
+     * ponderadas por su fracción de unidades (la orden sigue aportando a lo sumo Σ pesos).
+     */
+    double delivered(TEGraph g, OrderTable t, int order, Solution.Delivery dv, CapacityLedger ledger) {
+        final int size = t.size(order);
+        if (dv.splits.length == 0) return delivered(g, t, order, dv.legs, size, dv.arrivalHour, ledger);
+        double p = 0.0;
+        for (Solution.Split sp: dv.splits) {
+            p += sp.units / (double) Math.max(1, size) * delivered(g, t, order, sp.legs, sp.units, sp.arrivalHour, ledger);
+        }
+        return p;
+    }
+
+    private double delivered(TEGraph g, OrderTable t, int order, int[] legs, int units, int arrival, CapacityLedger ledger) {
+        double p = 0.0;
+        for (int k = 0; k < terms.length; k++) p += weights[k] * terms[k].delivered(g, t, order, legs, units, arrival, ledger);
+        return p;
+    }
+
+    // --- Términos estándar ---
+
+    /** Riesgo de atraso: llegar con menos de 'marginHours' de holgura respecto al deadline. */
+    public static Term lateRisk(int marginHours) {
+        return new Term() {
+            @Override public String name() { return "late_risk"; }
+            @Override public double delivered(TEGraph g, OrderTable t, int i, int[] legs, int units, int arrival, CapacityLedger ledger) {
+                int slack = t.deadline(i) - arrival;
+                return slack >= marginHours ? 0.0 : (marginHours - slack) / (double) marginHours;
+            }
+        };
+    }
+
+    /** Tiempo de tránsito relativo a la ventana disponible (0 = llega al liberarse, 1 = justo al deadline). */
+    public static Term transitTime() {
+        return new Term() {
+            @Override public String name() { return "transit"; }
+            @Override public double delivered(TEGraph g, OrderTable t, int i, int[] legs, int units, int arrival, CapacityLedger ledger) {
+                int window = Math.max(1, t.deadline(i) - t.release(i));
+                return (arrival - t.release(i)) / (double) window;
+            }
+        };
+    }
+
+    /** Balance de carga: ocupación máxima (0..1) al cuadrado entre los tramos usados. */
+    public static Term loadBalance() {
+        return new Term() {
+            @Override public String name() { return "load_balance"; }
+            @Override public double delivered(TEGraph g, OrderTable t, int i, int[] legs, int units, int arrival, CapacityLedger ledger) {
+                double worst = 0.0;
+                for (int leg: legs) {
+                    int cap = g.capacityOf(leg);
+                    double used = 1.0 - ledger.remaining(leg) / (double) Math.max(1, cap);
+                    if (used > worst) worst = used;
+                }
+                return worst * worst;
+            }
+        };
+    }
+
+    /** Ocupación de almacén: horas en tierra (origen + escalas) sobre la ventana de la orden (0..1). */
+    public static Term warehouseWait() {
+        return new Term() {
+            @Override public String name() { return "warehouse"; }
+            @Override public double delivered(TEGraph g, OrderTable t, int i, int[] legs, int units, int arrival, CapacityLedger ledger) {
+                int ground = 0, at = t.release(i);
+                for (int leg: legs) {
+                    int dep0 = g.departureHour(leg), dep = g.nextOccurrence(dep0, at);
+                    ground += dep - at;
+                    at = dep + (g.arrivalHour(leg) - dep0);
+                }
+                return Math.min(1.0, ground / (double) Math.max(1, t.deadline(i) - t.release(i)));
+            }
+        };
+    }
+}
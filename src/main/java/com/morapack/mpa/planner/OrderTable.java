@@ -0,0 +1,52 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.util.List;
+
+/**
+ * Órdenes empaquetadas en columnas primitivas (struct-of-arrays) para el lazo del decodificador:
+ * índices densos de aeropuerto del TEGraph, deadline, tamaño y hora de liberación.
+ * Se construye una vez por resolución; es inmutable y puede compartirse entre hilos.
+ */
+public final class OrderTable {
+    final List<PackageOrder> orders;
+    final int[] origin;
+    final int[] destination;
+    final int[] deadline;
+    final int[] size;
+    final int[] release;
+
+    private OrderTable(List<PackageOrder> orders, int n) {
+        this.orders = orders;
+        this.origin = new int[n];
+        this.destination = new int[n];
+        this.deadline = new int[n];
+        this.size = new int[n];
+        this.release = new int[n];
+    }
+
+    public static OrderTable of(TEGraph graph, List<PackageOrder> orders) {
+        final int n = orders.size();
+        OrderTable t = new OrderTable(orders, n);
+        for (int i = 0; i < n; i++) {
+            PackageOrder o = orders.get(i);
+            t.origin[i] = graph.airportIndex(o.origin().code());
+            t.destination[i] = graph.airportIndex(o.destination().code());
+            t.deadline[i] = o.deadlineHour();
+            t.size[i] = o.sizeUnits();
+            t.release[i] = o.releaseHour();
+        }
+        return t;
+    }
+
+    public int size() { return origin.length; }
+    public int origin(int i) { return origin[i]; }
+    public int destination(int i) { return destination[i]; }
+    public int deadline(int i) { return deadline[i]; }
+    public int size(int i) { return size[i]; }
+    public int release(int i) { return release[i]; }
+    public PackageOrder order(int i) { return orders.get(i); }
+    public List<PackageOrder> orders() { return orders; }
+}
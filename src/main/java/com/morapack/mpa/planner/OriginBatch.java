@@ -0,0 +1,69 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.PathFinder;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.util.Arrays;
+
+/**
+ * Ruteo por lotes por origen: un solo sweep (llegada más temprana a todos los aeropuertos)
+ * por (origen, hora de liberación) y decodificación, compartido por todas sus órdenes.
+ *
+ * Como las reservas sólo quitan cupo, la llegada de un árbol ya calculado es cota inferior
+ * de la actual: si no llega antes del deadline la orden se descarta sin buscar, y si su ruta
+ * sigue reservable es óptima. Sólo cuando un tramo de la ruta se saturó se vuelve a barrer
+ * desde ese origen con los cupos vigentes.
+ *
+ * Estado de una decodificación (clear() al empezar la siguiente); no es thread-safe.
+ */
+final class OriginBatch {
+    private static final int[] NO_PATH = new int[0];
+
+    static final class Tree {
+        int stamp;
+        final int[] arrival; // por aeropuerto destino, -1 = inalcanzable
+        final int[][] path;  // tramos por aeropuerto destino
+        Tree(int airports) {
+            arrival = new int[airports];
+            path = new int[airports][];
+        }
+    }
+
+    private final TEGraph graph;
+    private final PathFinder finder;
+    private Tree[] trees = new Tree[0]; // [origen * hours() + liberación]
+    private int stamp = 1;              // árboles con otro stamp están vencidos
+    int sweeps;                         // barridos de la última decodificación
+
+    OriginBatch(TEGraph graph, PathFinder finder) {
+        this.graph = graph;
+        this.finder = finder;
+    }
+
+    void clear() {
+        stamp++;
+        sweeps = 0;
+    }
+
+    /** Árbol vigente de (origin, release); se barre si no existe en esta decodificación o si 'refresh'. */
+    Tree tree(CapacityLedger ledger, int origin, int release, boolean refresh) {
+        final int n = graph.airportCount();
+        final int hours = graph.hours();
+        if (trees.length != n * hours) trees = new Tree[n * hours];
+        int key = origin * hours + release;
+        Tree t = trees[key];
+        if (t != null && t.stamp == stamp && !refresh) return t;
+        if (t == null) t = trees[key] = new Tree(n);
+
+        finder.sweep(graph, ledger, origin, release, 1);
+        for (int d = 0; d < n; d++) {
+            int arr = finder.legsTo(graph, d);
+            t.arrival[d] = arr;
+            t.path[d] = arr < 0 ? NO_PATH : Arrays.copyOf(finder.legs(), finder.legCount());
+        }
+        t.stamp = stamp;
+        sweeps++;
+        return t;
+    }
+}
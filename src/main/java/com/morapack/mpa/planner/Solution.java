@@ -13,17 +13,59 @@ import java.util.List;
  */
 public class Solution {
     public static class Delivery {
+        private static final int[] NO_LEGS = new int[0];
+        private static final Split[] NO_SPLITS = new Split[0];
+
         public final PackageOrder order;
-        public final int arrivalHour; // hora de llegada
+        public final int arrivalHour; // hora de llegada (la última, si la orden se dividió)
+        /**
+         * Ids de FlightInstance reservados (no modificar). Si la orden se dividió son sólo los de la
+         * primera parte, que no lleva todas las unidades: quien recorra rutas debe consultar isSplit()
+         * y usar splits.
+         */
+        public final int[] legs;
+        public final Split[] splits;  // partes del envío dividido (vacío = una sola ruta con todas las unidades)
         public Delivery(PackageOrder order, int arrivalHour) {
-            this.order = order; this.arrivalHour = arrivalHour;
+            this(order, arrivalHour, NO_LEGS);
+        }
+        public Delivery(PackageOrder order, int arrivalHour, int[] legs) {
+            this.order = order; this.arrivalHour = arrivalHour; this.legs = legs; this.splits = NO_SPLITS;
+        }
+        public Delivery(PackageOrder order, int arrivalHour, Split[] splits) {
+            this.order = order; this.arrivalHour = arrivalHour; this.legs = splits[0].legs; this.splits = splits;
+        }
+        public boolean isSplit() { return splits.length > 0; }
+    }
+
+    /** Parte de un envío dividido: 'units' unidades por la ruta 'legs'. */
+    public static class Split {
+        public final int[] legs;
+        public final int units;
+        public final int arrivalHour;
+        public Split(int[] legs, int units, int arrivalHour) {
+            this.legs = legs; this.units = units; this.arrivalHour = arrivalHour;
+        }
+    }
+
+    /** Traza de la decodificación: orden de ruteo y resultado por posición (null = backlog). */
+    static final class Trace {
+        final OrderTable orders;
+        final int[] perm;
+        final Delivery[] outcome;
+        final Objective objective;
+        final double[] penaltyPrefix; // penalidad acumulada hasta cada posición (n + 1 entradas)
+        Trace(OrderTable orders, int[] perm, Delivery[] outcome, Objective objective, double[] penaltyPrefix) {
+            this.orders = orders; this.perm = perm; this.outcome = outcome;
+            this.objective = objective; this.penaltyPrefix = penaltyPrefix;
         }
     }
 
     public final List<Delivery> deliveries = new ArrayList<>();
     public final List<PackageOrder> backlog = new ArrayList<>();
     public double fitness;  // mayor es mejor
+    public double penalty;  // suma ponderada de términos del Objective (0 si no hay)
     public double percentDelivered;
+    Trace trace; // para decodificación incremental (ver Decoder)
 
     public int deliveredCount() { return deliveries.size(); }
 }
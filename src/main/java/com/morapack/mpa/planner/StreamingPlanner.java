@@ -0,0 +1,160 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.FlightInstance;
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.graph.WarehouseTimeline;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Planificador continuo (rolling horizon) sobre el calendario semanal:
+ * - Las órdenes llegan en cualquier momento (submit, thread-safe) con horas absolutas
+ *   (releaseHour/deadlineHour medidas desde el inicio de la operación, sin límite de semana).
+ * - replan(now) desliza una ventana de graph.hours() alineada al día que contiene 'now'. Como
+ *   el calendario se repite cada día, la ventana reutiliza el mismo TEGraph: hora relativa
+ *   = hora absoluta - inicio de ventana.
+ * - Rutas comprometidas (primer tramo ya despegó) quedan fijas y su cupo (vuelos y
+ *   almacén) se descuenta como baseline; sólo se re-optimizan órdenes nuevas o aún no despachadas, con un
+ *   presupuesto de tiempo acotado por llamada (budgetMs; MPAPlanner usa como mínimo 1 s).
+ *
+ * replan(...) no es concurrente consigo mismo (synchronized); submit(...) sí.
+ */
+public class StreamingPlanner {
+
+    /** Ruta asignada a una orden, en horas absolutas. */
+    public static class Assignment {
+        public final PackageOrder order;
+        public final List<FlightInstance> legs; // instancias con horas absolutas (id = -1)
+        public final int arrivalHour;
+        Assignment(PackageOrder order, List<FlightInstance> legs, int arrivalHour) {
+            this.order = order; this.legs = legs; this.arrivalHour = arrivalHour;
+        }
+        /** Hora absoluta de salida del primer tramo (o llegada si no hay tramos). */
+        public int firstDeparture() { return legs.isEmpty() ? arrivalHour : legs.get(0).departureHour(); }
+    }
+
+    /** Estado publicado tras cada replanificación. */
+    public static class Plan {
+        public final int nowHour;
+        public final List<Assignment> assignments; // activas (aún no entregadas)
+        public final List<PackageOrder> backlog;   // sin ruta factible en esta ventana
+        public final int deliveredTotal;           // entregadas acumuladas desde el inicio
+        public final long replanMs;
+        Plan(int nowHour, List<Assignment> assignments, List<PackageOrder> backlog, int deliveredTotal, long replanMs) {
+            this.nowHour = nowHour; this.assignments = assignments; this.backlog = backlog;
+            this.deliveredTotal = deliveredTotal; this.replanMs = replanMs;
+        }
+    }
+
+    private final TEGraph graph;
+    private final int population;
+    private final long budgetMs;
+    private final int workers;
+    private long seed;
+
+    private final Queue<PackageOrder> inbox = new ConcurrentLinkedQueue<>();
+    private final Map<PackageOrder, Assignment> active = new LinkedHashMap<>();
+    private final List<PackageOrder> unrouted = new ArrayList<>();
+    private int delivered;
+
+    public StreamingPlanner(TEGraph graph, int population, long budgetMs, long seed, int workers) {
+        this.graph = graph;
+        this.population = population;
+        this.budgetMs = budgetMs;
+        this.seed = seed;
+        this.workers = workers;
+    }
+
+    /** Encola una orden nueva (horas absolutas); se planifica en el próximo replan. */
+    public void submit(PackageOrder order) { inbox.add(order); }
+
+    /** Re-optimiza las órdenes no despachadas a la hora absoluta 'now'. */
+    public synchronized Plan replan(int nowHour) {
+        final long t0 = System.currentTimeMillis();
+        final int windowStart = (nowHour / 24) * 24;
+
+        // 1) Cerrar entregadas y separar comprometidas (ya despegaron) de re-planificables
+        List<PackageOrder> open = new ArrayList<>(unrouted);
+        unrouted.clear();
+        for (PackageOrder o; (o = inbox.poll()) != null; ) open.add(o);
+
+        CapacityLedger committed = new CapacityLedger(graph);
+        for (Iterator<Assignment> it = active.values().iterator(); it.hasNext(); ) {
+            Assignment a = it.next();
+            if (a.arrivalHour <= nowHour) {
+                delivered++;
+                it.remove();
+            } else if (a.firstDeparture() < nowHour) {
+                bookCommitted(committed, a, windowStart);
+            } else {
+                open.add(a.order);
+                it.remove();
+            }
+        }
+
+        // 2) Órdenes abiertas en horas relativas a la ventana
+        List<PackageOrder> rel = new ArrayList<>(open.size());
+        Map<PackageOrder, PackageOrder> original = new IdentityHashMap<>();
+        List<PackageOrder> expired = new ArrayList<>();
+        for (PackageOrder o: open) {
+            if (o.deadlineHour() <= nowHour) { expired.add(o); continue; }
+            int release = Math.max(o.releaseHour(), nowHour) - windowStart;
+            int deadline = Math.min(o.deadlineHour() - windowStart, graph.hours() - 1);
+            PackageOrder r = new PackageOrder(o.id(), o.origin(), o.destination(), deadline, o.sizeUnits(), release);
+            rel.add(r);
+            original.put(r, o);
+        }
+
+        // 3) MPA acotado en tiempo sobre la ventana, con los cupos comprometidos como base
+        if (!rel.isEmpty()) {
+            MPAPlanner mpa = new MPAPlanner(graph, population, budgetMs, seed++, Integer.MAX_VALUE, Math.max(1L, budgetMs / 3))
+                    .withWorkers(workers)
+                    .withBaseline(committed);
+            Solution best = mpa.solveWeekly(rel).best;
+            for (Solution.Delivery dv: best.deliveries) {
+                PackageOrder o = original.get(dv.order);
+                active.put(o, toAbsolute(o, dv, windowStart));
+            }
+            for (PackageOrder o: best.backlog) unrouted.add(original.get(o));
+        }
+        unrouted.addAll(expired);
+
+        List<PackageOrder> backlog = new ArrayList<>(unrouted);
+        unrouted.removeAll(expired); // las vencidas se reportan una sola vez
+        return new Plan(nowHour, new ArrayList<>(active.values()), backlog, delivered,
+                System.currentTimeMillis() - t0);
+    }
+
+    private void bookCommitted(CapacityLedger committed, Assignment a, int windowStart) {
+        final int units = a.order.sizeUnits();
+        final WarehouseTimeline wh = committed.warehouse();
+        int airport = graph.airportIndex(a.order.origin().code());
+        int at = a.order.releaseHour() - windowStart;
+        for (FlightInstance leg: a.legs) {
+            int h = leg.departureHour() - windowStart;
+            wh.add(airport, at, h, units); // estadía previa (se recorta a la ventana)
+            airport = graph.airportIndex(leg.flight().destination().code());
+            at = leg.arrivalHour() - windowStart;
+            // tramo ya volado o fuera de ventana: instanceId(...) = -1
+            int id = graph.instanceId(graph.flightIndex(leg.flight()), h);
+            if (id >= 0) committed.book(id, units);
+        }
+        wh.add(airport, at, at + WarehouseTimeline.PICKUP_HOURS, units);
+    }
+
+    /** El MPA de replan(...) no divide envíos: dv.legs es la ruta completa de la orden. */
+    private Assignment toAbsolute(PackageOrder o, Solution.Delivery dv, int windowStart) {
+        if (dv.isSplit()) throw new IllegalStateException("Envío dividido no soportado: " + o.id());
+        List<FlightInstance> legs = new ArrayList<>(dv.legs.length);
+        int at = dv.order.releaseHour();
+        for (int id: dv.legs) {
+            int dep0 = graph.departureHour(id), dep = graph.nextOccurrence(dep0, at);
+            at = dep + (graph.arrivalHour(id) - dep0);
+            legs.add(new FlightInstance(-1, graph.flight(graph.flightOf(id)), dep + windowStart, at + windowStart));
+        }
+        return new Assignment(o, legs, dv.arrivalHour + windowStart);
+    }
+}
@@ -0,0 +1,90 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.ReachabilityIndex;
+import com.morapack.mpa.graph.TEGraph;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vectores de prioridad iniciales para MPAPlanner.withSeeds(...):
+ * - Heurísticas constructivas baratas (EDF, menor holgura, menos alternativas)
+ * - Elite guardado de una corrida previa, indexado por id de orden (replanificación diaria)
+ *
+ * Las heurísticas devuelven prioridades por rango en [0, 1] (1 = se rutea primero);
+ * a igual puntaje se conserva el orden original.
+ */
+public final class WarmStart {
+    private WarmStart() { }
+
+    /** Earliest deadline first: menor deadline -> mayor prioridad. */
+    public static double[] earliestDeadlineFirst(List<PackageOrder> orders) {
+        double[] urgency = new double[orders.size()];
+        for (int i = 0; i < urgency.length; i++) urgency[i] = -orders.get(i).deadlineHour();
+        return byRank(urgency);
+    }
+
+    /**
+     * Menor holgura primero: deadline - llegada más temprana sin capacidad.
+     * Las órdenes inalcanzables van al final (no vale la pena reservarles cupo).
+     */
+    public static double[] shortestSlack(TEGraph graph, List<PackageOrder> orders) {
+        ReachabilityIndex reach = graph.reachability();
+        double[] urgency = new double[orders.size()];
+        for (int i = 0; i < urgency.length; i++) {
+            PackageOrder o = orders.get(i);
+            int e = reach.earliest(graph.airportIndex(o.origin().code()), graph.airportIndex(o.destination().code()));
+            urgency[i] = e < 0 || e > o.deadlineHour() ? Double.NEGATIVE_INFINITY : -(o.deadlineHour() - e);
+        }
+        return byRank(urgency);
+    }
+
+    /**
+     * Menos alternativas primero: cantidad de salidas desde el origen dentro de
+     * [liberación, deadline). Órdenes con pocas opciones se rutean antes.
+     */
+    public static double[] fewestAlternatives(TEGraph graph, List<PackageOrder> orders) {
+        // salidas acumuladas por aeropuerto y hora: prefix[a][h] = salidas en [0, h)
+        final int hours = graph.hours();
+        int[][] prefix = new int[graph.airportCount()][hours + 1];
+        for (int id = 0, n = graph.instanceCount(); id < n; id++) {
+            if (graph.exists(id)) prefix[graph.departureAirport(id)][graph.departureHour(id) + 1]++;
+        }
+        for (int[] row: prefix) for (int h = 0; h < hours; h++) row[h + 1] += row[h];
+
+        double[] urgency = new double[orders.size()];
+        for (int i = 0; i < urgency.length; i++) {
+            PackageOrder o = orders.get(i);
+            int[] row = prefix[graph.airportIndex(o.origin().code())];
+            int from = Math.min(o.releaseHour(), hours), to = Math.min(Math.max(from, o.deadlineHour()), hours);
+            urgency[i] = -(row[to] - row[from]);
+        }
+        return byRank(urgency);
+    }
+
+    /** Prioridades guardadas por id de orden; las órdenes nuevas reciben 'fallback'. */
+    public static double[] fromSaved(Map<String, Double> saved, List<PackageOrder> orders, double fallback) {
+        double[] x = new double[orders.size()];
+        for (int i = 0; i < x.length; i++) x[i] = saved.getOrDefault(orders.get(i).id(), fallback);
+        return x;
+    }
+
+    /** Guarda un vector de prioridades (p.ej. Result.bestPriorities) indexado por id de orden. */
+    public static Map<String, Double> toSaved(double[] priorities, List<PackageOrder> orders) {
+        Map<String, Double> out = new HashMap<>(orders.size() * 2);
+        for (int i = 0; i < priorities.length; i++) out.put(orders.get(i).id(), priorities[i]);
+        return out;
+    }
+
+    /** Puntaje (mayor = más urgente) -> prioridad por rango en [0, 1]. */
+    private static double[] byRank(double[] urgency) {
+        final int n = urgency.length;
+        int[] perm = new int[n];
+        IndexSort.sortDescending(urgency, perm, new int[n]);
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) x[perm[k]] = n == 1 ? 1.0 : 1.0 - k / (double) (n - 1);
+        return x;
+    }
+}
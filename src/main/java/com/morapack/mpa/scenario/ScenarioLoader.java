@@ -0,0 +1,239 @@
+package com.morapack.mpa.scenario;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.domain.PackageOrder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Carga de escenarios desde archivos planos (CSV separado por comas, '#' = comentario):
+ * - aeropuertos: code,city,continent,warehouseCapacity
+ * - vuelos:      id,origin,destination,durationHours,capacityPerInstance,frequencyPerDay
+ * - órdenes:     id,origin,destination,deadlineHour[,sizeUnits[,releaseHour]]
+ *
+ * Los archivos se leen con FileChannel mapeado a memoria (por regiones de hasta 1 GiB)
+ * y se parsean directamente sobre los bytes: no se crean Strings por línea; los códigos
+ * de aeropuerto (ASCII, <= 8 caracteres) se internan como long y se resuelven con una
+ * tabla abierta. scanOrders(...) entrega columnas primitivas sin crear objetos.
+ */
+public final class ScenarioLoader {
+
+    /** Receptor de órdenes en columnas primitivas (índices de aeropuerto según la lista dada). */
+    public interface OrderSink {
+        void accept(int origin, int destination, int deadlineHour, int sizeUnits, int releaseHour);
+    }
+
+    private ScenarioLoader() { }
+
+    /** Aeropuertos + vuelos -> escenario con su TEGraph. */
+    public static WeeklyScenario load(Path airportsFile, Path flightsFile) throws IOException {
+        List<Airport> airports = loadAirports(airportsFile);
+        return new WeeklyScenario(airports, loadFlights(flightsFile, airports));
+    }
+
+    public static List<Airport> loadAirports(Path file) throws IOException {
+        List<Airport> out = new ArrayList<>();
+        forEachLine(file, 4, (buf, f, line) -> {
+            String continent = f.string(buf, 2).toUpperCase(Locale.ROOT);
+            out.add(new Airport(f.string(buf, 0), f.string(buf, 1),
+                    Airport.Continent.valueOf(continent), f.parseInt(buf, 3, file, line)));
+        });
+        return out;
+    }
+
+    public static List<Flight> loadFlights(Path file, List<Airport> airports) throws IOException {
+        CodeTable codes = new CodeTable(airports);
+        List<Flight> out = new ArrayList<>();
+        forEachLine(file, 6, (buf, f, line) -> out.add(new Flight(
+                f.string(buf, 0),
+                airports.get(codes.resolve(buf, f, 1, file, line)),
+                airports.get(codes.resolve(buf, f, 2, file, line)),
+                Duration.ofHours(f.parseInt(buf, 3, file, line)),
+                f.parseInt(buf, 4, file, line),
+                f.parseInt(buf, 5, file, line))));
+        return out;
+    }
+
+    public static List<PackageOrder> loadOrders(Path file, List<Airport> airports) throws IOException {
+        CodeTable codes = new CodeTable(airports);
+        List<PackageOrder> out = new ArrayList<>();
+        forEachLine(file, 4, (buf, f, line) -> out.add(new PackageOrder(
+                f.string(buf, 0),
+                airports.get(codes.resolve(buf, f, 1, file, line)),
+                airports.get(codes.resolve(buf, f, 2, file, line)),
+                f.parseInt(buf, 3, file, line),
+                f.count > 4 ? f.parseInt(buf, 4, file, line) : 1,
+                f.count > 5 ? f.parseInt(buf, 5, file, line) : 0)));
+        return out;
+    }
+
+    /** Recorre el archivo de órdenes sin crear objetos por línea; devuelve la cantidad leída. */
+    public static long scanOrders(Path file, List<Airport> airports, OrderSink sink) throws IOException {
+        return scanOrders(file, airports, sink, MAX_REGION);
+    }
+
+    /** Igual, mapeando regiones de a lo sumo 'regionBytes' (para probar los cortes entre regiones). */
+    static long scanOrders(Path file, List<Airport> airports, OrderSink sink, long regionBytes) throws IOException {
+        CodeTable codes = new CodeTable(airports);
+        long[] n = new long[1];
+        forEachLine(file, 4, regionBytes, (buf, f, line) -> {
+            sink.accept(codes.resolve(buf, f, 1, file, line), codes.resolve(buf, f, 2, file, line),
+                    f.parseInt(buf, 3, file, line),
+                    f.count > 4 ? f.parseInt(buf, 4, file, line) : 1,
+                    f.count > 5 ? f.parseInt(buf, 5, file, line) : 0);
+            n[0]++;
+        });
+        return n[0];
+    }
+
+    // --- Lectura por líneas sobre regiones mapeadas ---
+
+    private interface LineHandler { void line(ByteBuffer buf, Fields f, long lineNo); }
+
+    private static final long MAX_REGION = 1L << 30;
+
+    private static void forEachLine(Path file, int minFields, LineHandler handler) throws IOException {
+        forEachLine(file, minFields, MAX_REGION, handler);
+    }
+
+    private static void forEachLine(Path file, int minFields, long maxRegion, LineHandler handler) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = ch.size();
+            final Fields f = new Fields();
+            long pos = 0, lineNo = 0;
+            while (pos < size) {
+                long len = Math.min(maxRegion, size - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                int limit = (int) len;
+                if (pos + len < size) {
+                    // cortar en el último salto de línea para no partir registros entre regiones
+                    while (limit > 0 && buf.get(limit - 1) != '\n') limit--;
+                    if (limit == 0) throw new IOException(file + ": línea mayor a " + maxRegion + " bytes");
+                }
+                int start = 0;
+                while (start < limit) {
+                    int end = start;
+                    while (end < limit && buf.get(end) != '\n') end++;
+                    lineNo++;
+                    int e = end > start && buf.get(end - 1) == '\r' ? end - 1 : end;
+                    if (e > start && buf.get(start) != '#') {
+                        f.split(buf, start, e);
+                        if (f.count < minFields) {
+                            throw new IllegalArgumentException(file + ":" + lineNo + ": se esperaban " + minFields + " campos");
+                        }
+                        handler.line(buf, f, lineNo);
+                    }
+                    start = end + 1;
+                }
+                pos += limit;
+            }
+        }
+    }
+
+    /** Posiciones [start, end) de los campos de la línea actual (reutilizable, sin copias). */
+    private static final class Fields {
+        final int[] start = new int[8];
+        final int[] end = new int[8];
+        int count;
+
+        void split(ByteBuffer buf, int from, int to) {
+            count = 0;
+            int s = from;
+            for (int i = from; i <= to && count < start.length; i++) {
+                if (i == to || buf.get(i) == ',') {
+                    int a = s, b = i;
+                    while (a < b && buf.get(a) == ' ') a++;
+                    while (b > a && buf.get(b - 1) == ' ') b--;
+                    start[count] = a;
+                    end[count] = b;
+                    count++;
+                    s = i + 1;
+                }
+            }
+        }
+
+        int parseInt(ByteBuffer buf, int k, Path file, long line) {
+            int i = start[k], e = end[k];
+            boolean neg = i < e && buf.get(i) == '-';
+            if (neg) i++;
+            if (i == e) throw new IllegalArgumentException(file + ":" + line + ": campo " + (k + 1) + " vacío");
+            int v = 0;
+            for (; i < e; i++) {
+                int c = buf.get(i) - '0';
+                if (c < 0 || c > 9) throw new IllegalArgumentException(file + ":" + line + ": número inválido en campo " + (k + 1));
+                if (v > (Integer.MAX_VALUE - c) / 10) {
+                    throw new IllegalArgumentException(file + ":" + line + ": número fuera de rango en campo " + (k + 1));
+                }
+                v = v * 10 + c;
+            }
+            return neg ? -v : v;
+        }
+
+        String string(ByteBuffer buf, int k) {
+            byte[] b = new byte[end[k] - start[k]];
+            for (int i = 0; i < b.length; i++) b[i] = buf.get(start[k] + i);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        /** Código ASCII de hasta 8 bytes empaquetado en un long (0 si no cabe). */
+        long code(ByteBuffer buf, int k) {
+            int len = end[k] - start[k];
+            if (len == 0 || len > 8) return 0L;
+            long key = 0L;
+            for (int i = start[k]; i < end[k]; i++) key = (key << 8) | (buf.get(i) & 0xFF);
+            return key;
+        }
+    }
+
+    /** Tabla abierta código(long) -> índice de aeropuerto. */
+    private static final class CodeTable {
+        private final long[] keys;
+        private final int[] vals;
+        private final int mask;
+
+        CodeTable(List<Airport> airports) {
+            int cap = Integer.highestOneBit(Math.max(4, airports.size() * 4) - 1) << 1;
+            keys = new long[cap];
+            vals = new int[cap];
+            mask = cap - 1;
+            for (int a = 0; a < airports.size(); a++) {
+                byte[] b = airports.get(a).code().getBytes(StandardCharsets.US_ASCII);
+                if (b.length == 0 || b.length > 8) {
+                    throw new IllegalArgumentException("Código de aeropuerto no soportado: " + airports.get(a).code());
+                }
+                long key = 0L;
+                for (byte x: b) key = (key << 8) | (x & 0xFF);
+                int i = slot(key);
+                while (keys[i] != 0L && keys[i] != key) i = (i + 1) & mask;
+                keys[i] = key;
+                vals[i] = a;
+            }
+        }
+
+        int resolve(ByteBuffer buf, Fields f, int k, Path file, long line) {
+            long key = f.code(buf, k);
+            if (key != 0L) {
+                for (int i = slot(key); keys[i] != 0L; i = (i + 1) & mask) {
+                    if (keys[i] == key) return vals[i];
+                }
+            }
+            throw new IllegalArgumentException(file + ":" + line + ": aeropuerto desconocido '" + f.string(buf, k) + "'");
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & mask;
+        }
+    }
+}
@@ -22,12 +22,22 @@ public class WeeklyScenario {
     public final TEGraph graph;
 
     public WeeklyScenario(List<Airport> airports, List<Flight> flights) {
+        this(airports, flights, 1, false);
+    }
+
+    /** Escenario sobre 'weeks' semanas (cyclic = el calendario se repite al terminar el horizonte). */
+    public WeeklyScenario(List<Airport> airports, List<Flight> flights, int weeks, boolean cyclic) {
         this.airports = airports;
         this.flights = flights;
-        this.graph = new TEGraph(airports);
+        this.graph = new TEGraph(airports, weeks, cyclic);
         flights.forEach(graph::addFlightWeekly);
     }
 
+    /** Mismos aeropuertos y vuelos con otro horizonte (el grafo es implícito: no se copian instancias). */
+    public WeeklyScenario withHorizon(int weeks, boolean cyclic) {
+        return new WeeklyScenario(airports, flights, weeks, cyclic);
+    }
+
     public static WeeklyScenario demoNetwork() {
         // Sedes y algunas ciudades conectadas (ejemplo)
         Airport LIM = new Airport("LIM","Lima", Airport.Continent.AMERICAS, 900);
@@ -62,8 +72,40 @@ public class WeeklyScenario {
         return new WeeklyScenario(aps, fs);
     }
 
+    /**
+     * Red sintética de N aeropuertos repartidos en los 3 continentes (para escalado/benchmarks):
+     * cada aeropuerto tiene 2 vuelos intra-continente (12h) y 1 inter-continente (24h).
+     */
+    public static WeeklyScenario syntheticNetwork(int nAirports, long seed) {
+        Random rnd = new Random(seed);
+        Airport.Continent[] conts = Airport.Continent.values();
+        List<Airport> aps = new ArrayList<>();
+        for (int i = 0; i < Math.max(conts.length * 2, nAirports); i++) {
+            String code = String.format("A%02d", i);
+            aps.add(new Airport(code, code, conts[i % conts.length], 800 + 100 * rnd.nextInt(3)));
+        }
+
+        List<Flight> fs = new ArrayList<>();
+        for (Airport o: aps) {
+            for (int k = 0; k < 3; k++) {
+                boolean intra = k < 2;
+                Airport d = aps.get(rnd.nextInt(aps.size()));
+                while (d == o || (d.continent() == o.continent()) != intra) d = aps.get(rnd.nextInt(aps.size()));
+                fs.add(intra
+                        ? new Flight(o.code() + "-" + d.code(), o, d, Duration.ofHours(12), 200 + rnd.nextInt(100), 2 + rnd.nextInt(2))
+                        : new Flight(o.code() + "-" + d.code(), o, d, Duration.ofHours(24), 300 + rnd.nextInt(100), 1));
+            }
+        }
+        return new WeeklyScenario(aps, fs);
+    }
+
     /** Genera N órdenes pseudoaleatorias con plazos según intra (48h) o inter (72h). */
     public List<PackageOrder> generateOrders(int n, long seed) {
+        return generateOrders(n, seed, 1, 1);
+    }
+
+    /** Igual que generateOrders(n, seed), con tamaño uniforme en [minUnits, maxUnits] unidades. */
+    public List<PackageOrder> generateOrders(int n, long seed, int minUnits, int maxUnits) {
         Random rnd = new Random(seed);
         List<PackageOrder> orders = new ArrayList<>();
         for (int i = 0; i < n; i++) {
@@ -73,7 +115,8 @@ public class WeeklyScenario {
 
             boolean sameCont = o.continent() == d.continent();
             int deadline = sameCont ? 48 : 72;
-            orders.add(new PackageOrder("ORD-" + i, o, d, deadline));
+            int size = maxUnits > minUnits ? minUnits + rnd.nextInt(maxUnits - minUnits + 1) : minUnits;
+            orders.add(new PackageOrder("ORD-" + i, o, d, deadline, size));
         }
         return orders;
     }
@@ -0,0 +1,67 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConnectionScanPathFinderTest {
+
+    @Test
+    void sameArrivalAsTimeExpandedWithoutWarehouseLimits() {
+        WeeklyScenario scn = WeeklyScenario.syntheticNetwork(30, 1);
+        for (TEGraph g: new TEGraph[] { scn.graph, scn.withHorizon(2, true).graph }) {
+            PathFinder te = new TimeExpandedPathFinder(), csa = new ConnectionScanPathFinder();
+            CapacityLedger empty = new CapacityLedger(g); // almacenes vacíos: nunca limitan 1 unidad
+            Random r = new Random(7);
+            for (int k = 0; k < 300; k++) {
+                int o = r.nextInt(g.airportCount()), d = r.nextInt(g.airportCount());
+                int start = r.nextInt(g.hours()), deadline = start + 24 + r.nextInt(120);
+                CapacityLedger ledger = k % 2 == 0 ? null : empty;
+                String at = "cyclic=" + g.isCyclic() + " " + o + "@" + start + " -> " + d;
+                assertEquals(te.route(g, ledger, o, start, d, deadline, 1),
+                        csa.route(g, ledger, o, start, d, deadline, 1), at);
+            }
+            for (int k = 0; k < 20; k++) {
+                int o = r.nextInt(g.airportCount()), start = r.nextInt(g.hours());
+                te.sweep(g, null, o, start, 1);
+                csa.sweep(g, null, o, start, 1);
+                for (int d = 0; d < g.airportCount(); d++) {
+                    assertEquals(te.arrivalAt(d), csa.arrivalAt(d), "sweep cyclic=" + g.isCyclic() + " " + o + "@" + start + " -> " + d);
+                }
+            }
+        }
+    }
+
+    @Test
+    void fallsBackWhenTheEarliestArrivalOverflowsTheWarehouse() {
+        Airport a = new Airport("AAA", "A", Airport.Continent.AMERICAS, 100);
+        Airport b = new Airport("BBB", "B", Airport.Continent.EUROPE, 1);
+        Airport c = new Airport("CCC", "C", Airport.Continent.ASIA, 100);
+        TEGraph g = new TEGraph(List.of(a, b, c));
+        g.addFlightWeekly(new Flight("AB", a, b, Duration.ofHours(2), 10, 2)); // 0->2 y 12->14
+        g.addFlightWeekly(new Flight("BC", b, c, Duration.ofHours(2), 10, 1)); // 24->26
+
+        CapacityLedger ledger = new CapacityLedger(g);
+        ledger.warehouse().add(1, 2, 13, 1); // B lleno hasta las 13: sólo cabe llegar a las 14
+
+        PathFinder te = new TimeExpandedPathFinder(), csa = new ConnectionScanPathFinder();
+        int expected = te.route(g, ledger, 0, 0, 2, g.hours() - 1, 1);
+        assertEquals(26, expected);
+        assertEquals(expected, csa.route(g, ledger, 0, 0, 2, g.hours() - 1, 1));
+        assertEquals(12, g.departureHour(csa.legs()[0]));
+        assertEquals(2, csa.legCount());
+
+        csa.sweep(g, ledger, 0, 0, 1);
+        assertEquals(expected, csa.arrivalAt(2));
+        assertEquals(expected, csa.legsTo(g, 2));
+        assertArrayEquals(new int[] { te.legs()[0], te.legs()[1] }, new int[] { csa.legs()[0], csa.legs()[1] });
+    }
+}
@@ -0,0 +1,106 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveInventoryTest {
+    private static final int THREADS = 8;
+
+    // A -> B -> C, un vuelo diario por tramo
+    private static TEGraph graph() {
+        Airport a = new Airport("AAA", "A", Airport.Continent.AMERICAS, 1000);
+        Airport b = new Airport("BBB", "B", Airport.Continent.EUROPE, 1000);
+        Airport c = new Airport("CCC", "C", Airport.Continent.ASIA, 1000);
+        TEGraph g = new TEGraph(List.of(a, b, c));
+        g.addFlightWeekly(new Flight("AB", a, b, Duration.ofHours(2), 50, 1));
+        g.addFlightWeekly(new Flight("BC", b, c, Duration.ofHours(2), 30, 1));
+        return g;
+    }
+
+    @Test
+    void concurrentReserveAndReleaseConserveCapacity() throws Exception {
+        TEGraph g = graph();
+        LiveInventory inv = new LiveInventory(g);
+        PathFinder finder = new TimeExpandedPathFinder();
+        assertTrue(finder.route(g, null, 0, 0, 2, g.hours() - 1, 1) >= 0);
+        final int[] legs = Arrays.copyOf(finder.legs(), finder.legCount());
+        assertEquals(2, legs.length);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> held = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final long seed = t;
+                held.add(pool.submit(() -> {
+                    Random r = new Random(seed);
+                    List<Integer> mine = new ArrayList<>();
+                    for (int k = 0; k < 20_000; k++) {
+                        if (!mine.isEmpty() && r.nextInt(3) == 0) {
+                            inv.release(legs, legs.length, mine.remove(mine.size() - 1));
+                        } else {
+                            int units = 1 + r.nextInt(3);
+                            if (inv.reserve(legs, legs.length, units)) mine.add(units);
+                        }
+                        for (int leg: legs) assertTrue(inv.remaining(leg) >= 0);
+                    }
+                    long sum = 0;
+                    for (int u: mine) sum += u;
+                    return sum;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> f: held) total += f.get();
+
+            // Cada tramo vendió exactamente lo que siguen reteniendo los hilos
+            for (int leg: legs) assertEquals(g.capacityOf(leg) - total, inv.remaining(leg));
+            assertEquals(legs.length * total, inv.unitsBooked());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentBookingsNeverOversell() throws Exception {
+        TEGraph g = graph();
+        LiveInventory inv = new LiveInventory(g);
+        AtomicLong sold = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                done.add(pool.submit(() -> {
+                    PathFinder finder = new TimeExpandedPathFinder(); // uno por hilo
+                    int[] legs;
+                    while ((legs = inv.book(finder, 0, 0, 2, g.hours() - 1, 2)) != null) {
+                        sold.addAndGet(2L * legs.length);
+                    }
+                }));
+            }
+            for (Future<?> f: done) f.get(); // propaga fallas de los hilos
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int id = 0; id < g.instanceCount(); id++) {
+            assertTrue(inv.remaining(id) >= 0);
+            assertTrue(inv.remaining(id) <= g.capacityOf(id));
+        }
+        assertEquals(sold.get(), inv.unitsBooked());
+        assertTrue(inv.booked.sum() > 0);
+    }
+}
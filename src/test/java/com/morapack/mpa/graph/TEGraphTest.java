@@ -0,0 +1,71 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.domain.FlightInstance;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TEGraphTest {
+    private static final int THREADS = 4;
+    private static final int CAPACITY = 100;
+
+    @Test
+    void instancesStayUniqueWhileFlightsAreAdded() throws Exception {
+        Airport a = new Airport("AAA", "A", Airport.Continent.AMERICAS, 1000);
+        Airport b = new Airport("BBB", "B", Airport.Continent.EUROPE, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            for (int round = 0; round < 20; round++) {
+                TEGraph g = new TEGraph(List.of(a, b), 8, true);
+                g.addFlightWeekly(new Flight("AB", a, b, Duration.ofHours(2), CAPACITY, 24));
+                final int ids = g.instanceCount();
+
+                // Cada hilo materializa y reserva 1 unidad por instancia mientras otro agrega vuelos
+                CountDownLatch go = new CountDownLatch(1);
+                AtomicBoolean done = new AtomicBoolean();
+                List<Future<?>> bookers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    final int shift = t * ids / THREADS;
+                    bookers.add(pool.submit(() -> {
+                        go.await();
+                        for (int k = 0; k < ids; k++) assertTrue(g.instance((k + shift) % ids).book(1));
+                        return null;
+                    }));
+                }
+                Future<?> adder = pool.submit(() -> {
+                    go.await();
+                    for (int k = 0; !done.get(); k++) {
+                        g.addFlightWeekly(new Flight("BA" + k, b, a, Duration.ofHours(3), 10, 1));
+                        g.instanceCount(); // recompila mientras los otros reservan
+                    }
+                    return null;
+                });
+                go.countDown();
+                for (Future<?> f: bookers) f.get();
+                done.set(true);
+                adder.get();
+
+                // Las reservas de todos los hilos quedaron en el único objeto de cada id
+                for (int id = 0; id < ids; id++) {
+                    FlightInstance fi = g.instance(id);
+                    assertEquals(CAPACITY - THREADS, fi.remainingCapacity(), "ronda " + round + ", instancia " + id);
+                    assertEquals(fi.remainingCapacity(), g.sharedRemaining(id));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
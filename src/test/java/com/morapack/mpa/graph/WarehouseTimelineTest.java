@@ -0,0 +1,100 @@
+package com.morapack.mpa.graph;
+
+import com.morapack.mpa.domain.Airport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarehouseTimelineTest {
+
+    private static TEGraph graph(boolean cyclic) {
+        return new TEGraph(List.of(
+                new Airport("AAA", "A", Airport.Continent.AMERICAS, 10),
+                new Airport("BBB", "B", Airport.Continent.EUROPE, 10)), 1, cyclic);
+    }
+
+    @Test
+    void cyclicIntervalWrapsAroundTheEndOfTheCycle() {
+        WarehouseTimeline wh = new WarehouseTimeline(graph(true));
+        wh.add(0, 160, 172, 5); // [160, 168) + [0, 4)
+
+        assertEquals(5, wh.peak(0, 165, 168));
+        assertEquals(5, wh.peak(0, 0, 4));
+        assertEquals(0, wh.peak(0, 4, 160));
+        assertEquals(5, wh.peak(0, 166, 170));
+        assertEquals(5, wh.peak(0, 168 + 1, 168 + 3)); // horas absolutas del ciclo siguiente
+        assertEquals(0, wh.peak(1, 0, 168));
+
+        assertTrue(wh.fits(0, 0, 4, 5));
+        assertFalse(wh.fits(0, 0, 4, 6));
+        assertTrue(wh.fits(0, 4, 160, 10));
+    }
+
+    @Test
+    void cyclicIntervalLongerThanTheCycleCoversItWhole() {
+        WarehouseTimeline wh = new WarehouseTimeline(graph(true));
+        wh.add(0, 10, 10 + 200, 2);
+        assertEquals(2, wh.peak(0, 0, 1));
+        assertEquals(2, wh.peak(0, 100, 101));
+        assertEquals(2, wh.peak(0, 167, 168));
+    }
+
+    @Test
+    void linearIntervalIsClippedToTheHorizon() {
+        WarehouseTimeline wh = new WarehouseTimeline(graph(false));
+        wh.add(0, 160, 172, 5);
+        assertEquals(5, wh.peak(0, 160, 168));
+        assertEquals(0, wh.peak(0, 0, 4));
+        assertEquals(0, wh.peak(0, 170, 180));
+        wh.add(0, -3, 2, 1);
+        assertEquals(1, wh.peak(0, -10, 1));
+    }
+
+    @Test
+    void matchesHourByHourCountsOnRandomOperations() {
+        for (boolean cyclic: new boolean[] { false, true }) {
+            WarehouseTimeline wh = new WarehouseTimeline(graph(cyclic));
+            int[] occ = new int[168];
+            Random r = new Random(42);
+            for (int k = 0; k < 2000; k++) {
+                int from = r.nextInt(200) - 16, to = from + 1 + r.nextInt(30);
+                if (r.nextBoolean()) {
+                    int u = 1 + r.nextInt(4);
+                    wh.add(0, from, to, u);
+                    for (int h = from; h < to; h++) {
+                        if (cyclic) occ[Math.floorMod(h, 168)] += u;
+                        else if (h >= 0 && h < 168) occ[h] += u;
+                    }
+                } else {
+                    int expected = 0;
+                    for (int h = from; h < to; h++) {
+                        if (cyclic) expected = Math.max(expected, occ[Math.floorMod(h, 168)]);
+                        else if (h >= 0 && h < 168) expected = Math.max(expected, occ[h]);
+                    }
+                    assertEquals(expected, wh.peak(0, from, to), "cyclic=" + cyclic + " [" + from + ", " + to + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void resetRestoresTheSnapshotOccupancy() {
+        WarehouseTimeline wh = new WarehouseTimeline(graph(true));
+        wh.add(0, 20, 30, 3);
+        WarehouseTimeline copy = wh.snapshot();
+        copy.add(0, 25, 40, 4);
+        copy.add(1, 0, 5, 1);
+        assertEquals(7, copy.peak(0, 0, 168));
+        assertEquals(3, wh.peak(0, 0, 168)); // el original no se ve afectado
+
+        copy.reset();
+        assertEquals(3, copy.peak(0, 0, 168));
+        assertEquals(0, copy.peak(0, 30, 40));
+        assertEquals(0, copy.peak(1, 0, 168));
+    }
+}
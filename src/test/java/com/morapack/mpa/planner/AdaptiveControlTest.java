@@ -0,0 +1,75 @@
+package com.morapack.mpa.planner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveControlTest {
+
+    private static AdaptiveControl control() {
+        return new AdaptiveControl(0.1, 0.05, 0.02, 8);
+    }
+
+    private static void stagnate(AdaptiveControl c) {
+        while (!c.shouldRestart()) c.endGeneration(false);
+    }
+
+    @Test
+    void restartsWithoutAnyImprovementCountFromTheFirst() {
+        AdaptiveControl c = control();
+        stagnate(c);
+        c.restarted();
+        assertFalse(c.converged());
+        stagnate(c);
+        c.restarted();
+        assertTrue(c.converged()); // el planner corta aquí, antes de re-sembrar
+    }
+
+    @Test
+    void improvementBetweenRestartsResetsTheCount() {
+        AdaptiveControl c = control();
+        c.endGeneration(true);
+        stagnate(c);
+        c.restarted(); // hubo mejora desde el inicio: no es infructuoso
+        stagnate(c);
+        c.restarted();
+        assertFalse(c.converged());
+        c.endGeneration(true);
+        stagnate(c);
+        c.restarted();
+        stagnate(c);
+        c.restarted();
+        assertFalse(c.converged());
+        stagnate(c);
+        c.restarted();
+        assertTrue(c.converged());
+    }
+
+    @Test
+    void reseedThatImprovesTheEliteIsNotFruitless() {
+        AdaptiveControl c = control();
+        stagnate(c);
+        c.restarted();     // sin mejora desde el inicio: infructuoso (1)
+        c.eliteImproved(); // pero el re-sembrado superó al elite
+        stagnate(c);
+        c.restarted();
+        assertFalse(c.converged());
+        stagnate(c);
+        c.restarted();
+        assertFalse(c.converged());
+        stagnate(c);
+        c.restarted();
+        assertTrue(c.converged());
+    }
+
+    @Test
+    void rememberedElitesAreKept() {
+        AdaptiveControl c = control();
+        c.remember(new double[] { 0.1, 0.2 }, 5.0);
+        c.remember(new double[] { 0.3, 0.4 }, 7.0);
+        assertEquals(2, c.memorySize());
+        assertEquals(0.3, c.memory(1)[0]);
+    }
+}
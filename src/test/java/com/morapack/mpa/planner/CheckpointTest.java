@@ -0,0 +1,134 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.PathFinder;
+import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointTest {
+    private static final WeeklyScenario SCN = WeeklyScenario.syntheticNetwork(12, 3);
+
+    @TempDir
+    Path dir;
+
+    /** Corre unas pocas generaciones sobre un baseline con almacén ocupado y deja el checkpoint en 'file'. */
+    private static MPAPlanner.Result run(Path file, CapacityLedger baseline, List<PackageOrder> orders) {
+        return new MPAPlanner(SCN.graph, 6, 60_000, 5, 3, 60_000)
+                .withSplitShipments(3)
+                .withBaseline(baseline)
+                .withCheckpoint(file, 0)
+                .solveWeekly(orders);
+    }
+
+    private static CapacityLedger baseline() {
+        CapacityLedger b = new CapacityLedger(SCN.graph);
+        b.warehouse().add(0, 10, 40, 50);
+        b.warehouse().add(1, 160, 170, 30);
+        return b;
+    }
+
+    @Test
+    void writeThenReadRoundTrips() throws IOException {
+        List<PackageOrder> orders = SCN.generateOrders(200, 11, 1, 40);
+        Path file = dir.resolve("run.ck");
+        MPAPlanner.Result res = run(file, baseline(), orders);
+
+        Checkpoint ck = Checkpoint.read(file);
+        assertTrue(ck.matches(orders));
+        assertEquals(6, ck.population());
+        assertEquals(orders.size(), ck.orderCount());
+        assertArrayEquals(res.bestPriorities, ck.X[ck.eliteIndex]);
+        assertEquals(res.best.fitness, ck.eliteFitness);
+
+        Solution elite = ck.elite(orders);
+        assertEquals(res.best.deliveredCount(), elite.deliveredCount());
+
+        // Escribir lo leído produce el mismo archivo
+        Path copy = dir.resolve("copy.ck");
+        ck.write(copy);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+    }
+
+    @Test
+    void ledgerKeepsBaselineWarehouseAndEliteStays() throws IOException {
+        List<PackageOrder> orders = SCN.generateOrders(200, 11, 1, 40);
+        Path file = dir.resolve("run.ck");
+        MPAPlanner.Result res = run(file, baseline(), orders);
+
+        // Referencia: baseline + rutas del elite reservadas a mano
+        TEGraph g = SCN.graph;
+        CapacityLedger ref = baseline();
+        for (Solution.Delivery dv: res.best.deliveries) {
+            int o = g.airportIndex(dv.order.origin().code());
+            if (dv.isSplit()) {
+                for (Solution.Split sp: dv.splits) {
+                    PathFinder.bookRoute(g, ref, o, dv.order.releaseHour(), sp.legs, sp.legs.length, sp.units);
+                }
+            } else {
+                PathFinder.bookRoute(g, ref, o, dv.order.releaseHour(), dv.legs, dv.legs.length, dv.order.sizeUnits());
+            }
+        }
+
+        CapacityLedger restored = Checkpoint.read(file).ledger(g, orders);
+        for (int id = 0; id < ref.size(); id++) assertEquals(ref.remaining(id), restored.remaining(id));
+        assertArrayEquals(ref.warehouse().occupancy(), restored.warehouse().occupancy());
+
+        // reset() vuelve a la ocupación guardada, no a un almacén vacío
+        restored.warehouse().add(0, 0, 168, 1);
+        restored.reset();
+        assertArrayEquals(ref.warehouse().occupancy(), restored.warehouse().occupancy());
+    }
+
+    @Test
+    void truncatedFileFailsWithIOException() throws IOException {
+        List<PackageOrder> orders = SCN.generateOrders(100, 13, 1, 40);
+        Path file = dir.resolve("run.ck");
+        run(file, null, orders);
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int len: new int[] { 0, 6, 40, bytes.length / 2, bytes.length - 1 }) {
+            Path cut = dir.resolve("cut-" + len + ".ck");
+            Files.write(cut, Arrays.copyOf(bytes, len));
+            assertThrows(IOException.class, () -> Checkpoint.read(cut), "largo " + len);
+        }
+    }
+
+    @Test
+    void corruptCountsFailWithIOException() throws IOException {
+        List<PackageOrder> orders = SCN.generateOrders(100, 13, 1, 40);
+        Path file = dir.resolve("run.ck");
+        run(file, null, orders);
+        byte[] bytes = Files.readAllBytes(file);
+
+        // Cabecera: MAGIC, VERSION, huella (8), n, población, iteración, ms (8), índice del elite
+        int eliteIdxAt = 4 + 4 + 8 + 4 + 4 + 4 + 8;
+        for (int bad: new int[] { -1, 6, Integer.MAX_VALUE }) {
+            byte[] copy = bytes.clone();
+            ByteBuffer.wrap(copy).putInt(eliteIdxAt, bad);
+            Path f = dir.resolve("elite-" + bad + ".ck");
+            Files.write(f, copy);
+            assertThrows(IOException.class, () -> Checkpoint.read(f), "elite " + bad);
+        }
+        int populationAt = 4 + 4 + 8 + 4;
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(populationAt, 1 << 30);
+        Path f = dir.resolve("population.ck");
+        Files.write(f, copy);
+        assertThrows(IOException.class, () -> Checkpoint.read(f));
+    }
+}
@@ -0,0 +1,126 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.CapacityLedger;
+import com.morapack.mpa.graph.TEGraph;
+import com.morapack.mpa.metrics.PlannerMetrics;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecoderSplitTest {
+    private static final Airport A = new Airport("AAA", "A", Airport.Continent.AMERICAS, 1000);
+    private static final Airport B = new Airport("BBB", "B", Airport.Continent.EUROPE, 1000);
+
+    // A -> B a las 0 y a las 12 (llegan 2 y 14), 6 unidades por vuelo
+    private static TEGraph graph() {
+        TEGraph g = new TEGraph(List.of(A, B));
+        g.addFlightWeekly(new Flight("AB", A, B, Duration.ofHours(2), 6, 2));
+        return g;
+    }
+
+    private static int[] remaining(CapacityLedger l) {
+        int[] r = new int[l.size()];
+        for (int id = 0; id < r.length; id++) r[id] = l.remaining(id);
+        return r;
+    }
+
+    @Test
+    void orderThatNoSingleRouteCarriesIsSplit() {
+        TEGraph g = graph();
+        List<PackageOrder> orders = List.of(new PackageOrder("o1", A, B, 20, 10, 0));
+        Decoder dec = new Decoder(g);
+        // Penalidad = unidades de cada parte: sólo cuadra si cada parte se evalúa con las suyas
+        dec.setObjective(Objective.builder().add(new Objective.Term() {
+            @Override public String name() { return "units"; }
+            @Override public double delivered(TEGraph gr, OrderTable t, int i, int[] legs, int units, int arrival, CapacityLedger l) {
+                return units;
+            }
+        }, 1.0).build());
+
+        assertEquals(0, dec.decode(new double[] { 1 }, orders).deliveredCount()); // sin dividir: backlog
+
+        dec.setSplitShipments(3);
+        Solution s = dec.decode(new double[] { 1 }, orders);
+        assertEquals(1, s.deliveredCount());
+        Solution.Delivery dv = s.deliveries.get(0);
+        assertTrue(dv.isSplit());
+        assertEquals(2, dv.splits.length);
+        assertEquals(6, dv.splits[0].units);
+        assertEquals(4, dv.splits[1].units);
+        assertEquals(14, dv.arrivalHour);
+        assertEquals((6.0 * 6 + 4.0 * 4) / 10, s.penalty, 1e-9);
+
+        int[] left = remaining(dec.ledger());
+        assertEquals(0, left[dv.splits[0].legs[0]]);
+        assertEquals(2, left[dv.splits[1].legs[0]]);
+    }
+
+    @Test
+    void uncoverableSplitLeavesLedgerAndWarehouseUntouched() {
+        TEGraph g = graph();
+        CapacityLedger baseline = new CapacityLedger(g);
+        baseline.warehouse().add(0, 0, 30, 5);
+        baseline.book(g.instanceId(0, 24), 1);
+
+        // 20 unidades y sólo 12 de cupo antes del deadline: se reservan dos partes y se deshacen
+        List<PackageOrder> orders = List.of(new PackageOrder("o1", A, B, 20, 20, 0));
+        Decoder dec = new Decoder(g, baseline);
+        dec.setSplitShipments(3);
+        Solution s = dec.decode(new double[] { 1 }, orders);
+        assertEquals(0, s.deliveredCount());
+        assertEquals(1, s.backlog.size());
+
+        assertArrayEquals(remaining(baseline), remaining(dec.ledger()));
+        assertArrayEquals(baseline.warehouse().occupancy(), dec.ledger().warehouse().occupancy());
+    }
+
+    @Test
+    void incrementalDecodeReplaysSplitPartsLikeAFullDecode() {
+        WeeklyScenario scn = WeeklyScenario.syntheticNetwork(12, 3);
+        List<PackageOrder> orders = scn.generateOrders(300, 9, 50, 300);
+        OrderTable table = OrderTable.of(scn.graph, orders);
+        Decoder inc = new Decoder(scn.graph), full = new Decoder(scn.graph);
+        for (Decoder d: new Decoder[] { inc, full }) {
+            d.setSplitShipments(4);
+            d.setObjective(Objective.standard());
+        }
+
+        Random r = new Random(1);
+        double[] x = new double[orders.size()];
+        for (int i = 0; i < x.length; i++) x[i] = 0.1 + 0.9 * r.nextDouble();
+        Solution parent = inc.decode(x, table, null);
+
+        // Sólo bajan de prioridad 20 órdenes: el resto es el prefijo reutilizado
+        double[] y = x.clone();
+        Set<Integer> moved = new HashSet<>();
+        while (moved.size() < 20) moved.add(r.nextInt(y.length));
+        for (int i: moved) y[i] = 0.05 * r.nextDouble();
+        boolean splitInPrefix = false;
+        for (Solution.Delivery dv: parent.deliveries) {
+            if (dv.isSplit() && !moved.contains(orders.indexOf(dv.order))) splitInPrefix = true;
+        }
+        assertTrue(splitInPrefix, "el prefijo debe incluir envíos divididos");
+
+        PlannerMetrics m = new PlannerMetrics();
+        inc.setMetrics(m);
+        Solution a = inc.decode(y, table, parent);
+        assertTrue(m.prefixReused.sum() > 0);
+        Solution b = full.decode(y, table, null);
+        assertEquals(b.deliveredCount(), a.deliveredCount());
+        assertEquals(b.fitness, a.fitness, 1e-6);
+        assertArrayEquals(remaining(full.ledger()), remaining(inc.ledger()));
+        assertArrayEquals(full.ledger().warehouse().occupancy(), inc.ledger().warehouse().occupancy());
+    }
+}
@@ -0,0 +1,32 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.metrics.PlannerMetrics;
+import com.morapack.mpa.scenario.WeeklyScenario;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MPAPlannerTest {
+    private static final WeeklyScenario SCN = WeeklyScenario.syntheticNetwork(12, 3);
+
+    @Test
+    void cancelAppliesToOneRunAndThePlannerCanBeReused() {
+        List<PackageOrder> orders = SCN.generateOrders(100, 5, 1, 20);
+        PlannerMetrics metrics = new PlannerMetrics();
+        MPAPlanner mpa = new MPAPlanner(SCN.graph, 6, 60_000, 1, 3, 60_000).withMetrics(metrics);
+
+        mpa.cancel(); // antes de empezar: cancela la próxima corrida
+        MPAPlanner.Result first = mpa.solveWeekly(orders);
+        assertTrue(first.cancelled);
+        assertEquals(0, metrics.iterations.sum());
+
+        MPAPlanner.Result second = mpa.solveWeekly(orders);
+        assertFalse(second.cancelled);
+        assertEquals(3, metrics.iterations.sum());
+    }
+}
@@ -0,0 +1,92 @@
+package com.morapack.mpa.planner;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.domain.FlightInstance;
+import com.morapack.mpa.domain.PackageOrder;
+import com.morapack.mpa.graph.TEGraph;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingPlannerTest {
+    private static final Airport A = new Airport("AAA", "A", Airport.Continent.AMERICAS, 1000);
+    private static final Airport B = new Airport("BBB", "B", Airport.Continent.EUROPE, 1000);
+    private static final Airport C = new Airport("CCC", "C", Airport.Continent.ASIA, 1000);
+
+    // A -> B sale a las 0 (llega 2); B -> C sale a las 0 y 12 (llega 2 y 14); cupo 10
+    private static TEGraph graph() {
+        TEGraph g = new TEGraph(List.of(A, B, C));
+        g.addFlightWeekly(new Flight("AB", A, B, Duration.ofHours(2), 10, 1));
+        g.addFlightWeekly(new Flight("BC", B, C, Duration.ofHours(2), 10, 2));
+        return g;
+    }
+
+    private static StreamingPlanner.Assignment find(StreamingPlanner.Plan plan, PackageOrder o) {
+        for (StreamingPlanner.Assignment a: plan.assignments) if (a.order == o) return a;
+        return null;
+    }
+
+    private static int[] departures(StreamingPlanner.Assignment a) {
+        return a.legs.stream().mapToInt(FlightInstance::departureHour).toArray();
+    }
+
+    @Test
+    void committedRoutesStayFixedAndKeepTheirCapacity() {
+        StreamingPlanner sp = new StreamingPlanner(graph(), 6, 1000, 3, 1);
+        PackageOrder first = new PackageOrder("o1", A, C, 40, 6, 0);
+        sp.submit(first);
+        StreamingPlanner.Plan p0 = sp.replan(0);
+        StreamingPlanner.Assignment a0 = find(p0, first);
+        assertEquals(14, a0.arrivalHour);
+        assertEquals(List.of(0, 12), List.of(departures(a0)[0], departures(a0)[1]));
+
+        // A la hora 1 el primer tramo ya despegó: la ruta queda comprometida y ocupa 6 de 10
+        // en B -> C de las 12, así que una orden de 6 que sólo cabe en ese vuelo queda sin ruta
+        PackageOrder second = new PackageOrder("o2", B, C, 16, 6, 1);
+        sp.submit(second);
+        StreamingPlanner.Plan p1 = sp.replan(1);
+        StreamingPlanner.Assignment a1 = find(p1, first);
+        assertEquals(a0.arrivalHour, a1.arrivalHour);
+        assertSame(a0, a1); // no se re-planificó
+        assertTrue(p1.backlog.contains(second));
+
+        // Una orden de 4 sí cabe en el cupo restante
+        PackageOrder third = new PackageOrder("o3", B, C, 16, 4, 1);
+        sp.submit(third);
+        StreamingPlanner.Plan p2 = sp.replan(2);
+        assertEquals(14, find(p2, third).arrivalHour);
+
+        // Hora 20: ambas entregadas; la vencida se reporta una sola vez
+        StreamingPlanner.Plan p3 = sp.replan(20);
+        assertEquals(2, p3.deliveredTotal);
+        assertTrue(p3.assignments.isEmpty());
+        assertTrue(p3.backlog.contains(second));
+        assertTrue(sp.replan(21).backlog.isEmpty());
+    }
+
+    @Test
+    void windowAlignsToTheDayAcrossBoundaries() {
+        StreamingPlanner sp = new StreamingPlanner(graph(), 6, 1000, 3, 1);
+        // Llega a mitad del día 1: el próximo A -> B es el del día 2 (hora absoluta 48)
+        PackageOrder late = new PackageOrder("late", A, B, 60, 3, 30);
+        sp.submit(late);
+        StreamingPlanner.Assignment a = find(sp.replan(30), late);
+        assertEquals(48, departures(a)[0]);
+        assertEquals(50, a.arrivalHour);
+
+        // Replan justo antes de la salida: aún re-planificable, misma ruta en horas absolutas
+        StreamingPlanner.Assignment b = find(sp.replan(47), late);
+        assertEquals(48, departures(b)[0]);
+        assertEquals(50, b.arrivalHour);
+
+        // Ventana del día 2: ya despegó, queda comprometida; al llegar se cuenta como entregada
+        assertSame(b, find(sp.replan(49), late));
+        assertEquals(1, sp.replan(50).deliveredTotal);
+    }
+}
@@ -0,0 +1,110 @@
+package com.morapack.mpa.scenario;
+
+import com.morapack.mpa.domain.Airport;
+import com.morapack.mpa.domain.Flight;
+import com.morapack.mpa.domain.PackageOrder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScenarioLoaderTest {
+    @TempDir
+    Path dir;
+
+    private Path file(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Airport> airports() throws IOException {
+        return ScenarioLoader.loadAirports(file("airports.csv",
+                "# code,city,continent,cap\r\nLIM,Lima,americas,900\r\n\r\nIST, Estambul ,Asia,800\r\nMAD,Madrid,EUROPE,700"));
+    }
+
+    @Test
+    void loadsAirportsWithCrlfCommentsAndAnyLocale() throws IOException {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR")); // "asia".toUpperCase() sería "ASİA"
+        try {
+            List<Airport> aps = airports();
+            assertEquals(3, aps.size());
+            assertEquals("IST", aps.get(1).code());
+            assertEquals("Estambul", aps.get(1).city());
+            assertEquals(Airport.Continent.ASIA, aps.get(1).continent());
+            assertEquals(700, aps.get(2).warehouseCapacity()); // última línea sin salto
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void loadsFlightsAndOrdersWithOptionalColumns() throws IOException {
+        List<Airport> aps = airports();
+        List<Flight> fs = ScenarioLoader.loadFlights(file("flights.csv",
+                "LIM-MAD,LIM,MAD,12,260,2\n# comentario\nMAD-IST,MAD,IST,5,300,1\n"), aps);
+        assertEquals(2, fs.size());
+        assertEquals(12, fs.get(0).duration().toHours());
+        assertEquals("IST", fs.get(1).destination().code());
+
+        List<PackageOrder> os = ScenarioLoader.loadOrders(file("orders.csv",
+                "o1,LIM,MAD,72\no2,MAD,IST,48,5\no3,IST,LIM,100,2,30\n"), aps);
+        assertEquals(1, os.get(0).sizeUnits());
+        assertEquals(0, os.get(0).releaseHour());
+        assertEquals(5, os.get(1).sizeUnits());
+        assertEquals(0, os.get(1).releaseHour());
+        assertEquals(2, os.get(2).sizeUnits());
+        assertEquals(30, os.get(2).releaseHour());
+    }
+
+    @Test
+    void rejectsUnknownCodesOverflowAndShortLines() throws IOException {
+        List<Airport> aps = airports();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ScenarioLoader.loadOrders(file("unknown.csv", "o1,LIM,XXX,72\n"), aps));
+        assertTrue(e.getMessage().contains("XXX"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScenarioLoader.loadOrders(file("long.csv", "o1,LIM,ABCDEFGHIJ,72\n"), aps));
+        e = assertThrows(IllegalArgumentException.class,
+                () -> ScenarioLoader.loadOrders(file("overflow.csv", "o1,LIM,MAD,4294967368\n"), aps));
+        assertTrue(e.getMessage().contains("fuera de rango"));
+        assertEquals(Integer.MAX_VALUE, ScenarioLoader.loadOrders(file("max.csv", "o1,LIM,MAD,2147483647\n"), aps)
+                .get(0).deadlineHour());
+        assertThrows(IllegalArgumentException.class,
+                () -> ScenarioLoader.loadOrders(file("short.csv", "o1,LIM,MAD\n"), aps));
+    }
+
+    @Test
+    void splitsRegionsOnLineBoundaries() throws IOException {
+        List<Airport> aps = airports();
+        StringBuilder sb = new StringBuilder("# órdenes\r\n");
+        for (int i = 0; i < 200; i++) {
+            sb.append("o").append(i).append(',').append(i % 2 == 0 ? "LIM" : "MAD").append(",IST,")
+              .append(24 + i).append(i % 3 == 0 ? "" : "," + (1 + i % 7)).append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        Path f = file("many.csv", sb.toString());
+
+        List<String> expected = scan(f, aps, 1L << 30);
+        assertEquals(200, expected.size());
+        for (long region: new long[] { 24, 25, 37, 64, 1000 }) {
+            assertEquals(expected, scan(f, aps, region), "región " + region);
+        }
+        assertThrows(IOException.class, () -> scan(f, aps, 8)); // una línea no cabe en la región
+    }
+
+    private static List<String> scan(Path f, List<Airport> aps, long region) throws IOException {
+        List<String> rows = new ArrayList<>();
+        ScenarioLoader.scanOrders(f, aps, (o, d, deadline, size, release) ->
+                rows.add(o + "," + d + "," + deadline + "," + size + "," + release), region);
+        return rows;
+    }
+}